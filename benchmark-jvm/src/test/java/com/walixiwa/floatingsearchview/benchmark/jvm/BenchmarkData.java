@@ -0,0 +1,113 @@
+package com.walixiwa.floatingsearchview.benchmark.jvm;
+
+/**
+ * Copyright (C) 2015 Ari C.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import com.walixiwa.floatingsearchview.suggestions.CompactSuggestionList;
+import com.walixiwa.floatingsearchview.suggestions.model.SearchSuggestion;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Synthetic data sets for the benchmarks. They are generated from a fixed
+ * seed, so every run and every release is measured with the same data.
+ */
+final class BenchmarkData {
+
+    private static final long SEED = 42;
+
+    private static final String[] SYLLABLES = {
+            "pro", "gram", "ming", "lan", "guage", "ja", "va", "kot", "lin", "and",
+            "roid", "sea", "rch", "view", "float", "ing", "sug", "ges", "tion", "list"
+    };
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Returns bodies of one to four words.
+     */
+    static List<String> bodies(int count) {
+        return bodies(count, new Random(SEED));
+    }
+
+    /**
+     * Returns suggestions with the given bodies and ids 0 to count - 1.
+     */
+    static CompactSuggestionList compactSuggestions(List<String> bodies) {
+        return compactSuggestions(bodies, 0);
+    }
+
+    /**
+     * Returns the rows of the given list as suggestion objects whose
+     * bodies were already created, like the suggestions apps implement.
+     */
+    static List<SearchSuggestion> suggestions(CompactSuggestionList compactSuggestions) {
+        List<SearchSuggestion> suggestions = new ArrayList<>(compactSuggestions.size());
+        for (int i = 0; i < compactSuggestions.size(); i++) {
+            SearchSuggestion suggestion = compactSuggestions.get(i);
+            suggestion.getBody();
+            suggestions.add(suggestion);
+        }
+        return suggestions;
+    }
+
+    /**
+     * Returns a copy of the given suggestions in which every tenth
+     * suggestion is replaced by a new one, like the results for a
+     * query that was extended by one character.
+     */
+    static List<SearchSuggestion> changedSuggestions(List<SearchSuggestion> suggestions) {
+        List<String> replacementBodies = bodies(suggestions.size() / 10 + 1, new Random(SEED + 1));
+        List<SearchSuggestion> replacements = suggestions(
+                compactSuggestions(replacementBodies, suggestions.size()));
+        List<SearchSuggestion> changed = new ArrayList<>(suggestions);
+        for (int i = 0; i < changed.size(); i += 10) {
+            changed.set(i, replacements.get(i / 10));
+        }
+        return changed;
+    }
+
+    private static CompactSuggestionList compactSuggestions(List<String> bodies, long firstId) {
+        CompactSuggestionList.Builder builder = new CompactSuggestionList.Builder(bodies.size());
+        for (int i = 0; i < bodies.size(); i++) {
+            builder.add(bodies.get(i), firstId + i);
+        }
+        return builder.build();
+    }
+
+    private static List<String> bodies(int count, Random random) {
+        List<String> bodies = new ArrayList<>(count);
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            body.setLength(0);
+            int words = 1 + random.nextInt(4);
+            for (int w = 0; w < words; w++) {
+                if (w > 0) {
+                    body.append(' ');
+                }
+                int syllables = 1 + random.nextInt(3);
+                for (int s = 0; s < syllables; s++) {
+                    body.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+                }
+            }
+            bodies.add(body.toString());
+        }
+        return bodies;
+    }
+}
@@ -0,0 +1,112 @@
+package com.walixiwa.floatingsearchview.benchmark.jvm;
+
+/**
+ * Copyright (C) 2015 Ari C.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import com.walixiwa.floatingsearchview.suggestions.history.HistoryIndex;
+import com.walixiwa.floatingsearchview.suggestions.history.SearchHistoryStore;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures search history prefix lookups, both on queries recorded in
+ * memory and on queries searched in place in a memory-mapped index file,
+ * as after a cold start.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HistoryBenchmark {
+
+    private static final int MAX_SUGGESTIONS = 10;
+
+    @Param({"50000"})
+    public int entryCount;
+
+    //a short prefix matches a large part of the history, a long one only a few queries
+    @Param({"pro", "programming"})
+    public String prefix;
+
+    private HistoryIndex mIndex;
+    private HistoryIndex mMappedIndex;
+    private final int[] mPositions = new int[MAX_SUGGESTIONS];
+    private File mDirectory;
+
+    @Setup
+    public void setUp() throws IOException {
+        List<String> queries = BenchmarkData.bodies(entryCount);
+        mIndex = new HistoryIndex();
+        for (int i = 0; i < queries.size(); i++) {
+            mIndex.record(queries.get(i), i);
+        }
+
+        mDirectory = File.createTempFile("history", "");
+        if (!mDirectory.delete() || !mDirectory.mkdir()) {
+            throw new IOException("Can't create " + mDirectory);
+        }
+        SearchHistoryStore store = new SearchHistoryStore(mDirectory);
+        store.load(new HistoryIndex());
+        store.compact(mIndex.copy());
+        store.close();
+
+        SearchHistoryStore reloadedStore = new SearchHistoryStore(mDirectory);
+        mMappedIndex = new HistoryIndex();
+        reloadedStore.load(mMappedIndex);
+        reloadedStore.close();
+    }
+
+    @TearDown
+    public void tearDown() {
+        File[] files = mDirectory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                //noinspection ResultOfMethodCallIgnored
+                file.delete();
+            }
+        }
+        //noinspection ResultOfMethodCallIgnored
+        mDirectory.delete();
+    }
+
+    @Benchmark
+    public int findInMemory() {
+        return mIndex.find(prefix, mPositions);
+    }
+
+    @Benchmark
+    public int findInMappedFile() {
+        return mMappedIndex.find(prefix, mPositions);
+    }
+}
@@ -0,0 +1,107 @@
+package com.walixiwa.floatingsearchview.benchmark.jvm;
+
+/**
+ * Copyright (C) 2015 Ari C.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import androidx.recyclerview.widget.DiffUtil;
+
+import com.walixiwa.floatingsearchview.suggestions.CompactSuggestionList;
+import com.walixiwa.floatingsearchview.suggestions.FuzzyMatchIndex;
+import com.walixiwa.floatingsearchview.suggestions.FuzzyMatchSuggestion;
+import com.walixiwa.floatingsearchview.suggestions.FuzzyMatcher;
+import com.walixiwa.floatingsearchview.suggestions.SuggestionsDiffCallback;
+import com.walixiwa.floatingsearchview.suggestions.model.SearchSuggestion;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures diffing and fuzzy matching of suggestion lists, which run on a
+ * background executor for every settled query, and building the index that
+ * large lists are matched through.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SuggestionsBenchmark {
+
+    private static final String MISSPELLED_QUERY = "progrm";
+    private static final int MATCH_LIMIT = 10;
+
+    @Param({"20000"})
+    public int suggestionCount;
+
+    private List<SearchSuggestion> mSuggestions;
+    private List<SearchSuggestion> mChangedSuggestions;
+    private CompactSuggestionList mCompactSuggestions;
+    private FuzzyMatchIndex mFuzzyMatchIndex;
+    private FuzzyMatchIndex mCompactFuzzyMatchIndex;
+    private final FuzzyMatcher mFuzzyMatcher = new FuzzyMatcher();
+
+    @Setup
+    public void setUp() {
+        mCompactSuggestions = BenchmarkData.compactSuggestions(BenchmarkData.bodies(suggestionCount));
+        mSuggestions = BenchmarkData.suggestions(mCompactSuggestions);
+        mChangedSuggestions = BenchmarkData.changedSuggestions(mSuggestions);
+        mFuzzyMatchIndex = new FuzzyMatchIndex(mSuggestions);
+        mCompactFuzzyMatchIndex = new FuzzyMatchIndex(mCompactSuggestions);
+    }
+
+    @Benchmark
+    public DiffUtil.DiffResult diffChangedSuggestions() {
+        return DiffUtil.calculateDiff(new SuggestionsDiffCallback(mSuggestions, mChangedSuggestions));
+    }
+
+    @Benchmark
+    public List<FuzzyMatchSuggestion> fuzzyMatch() {
+        return mFuzzyMatcher.matchAll(MISSPELLED_QUERY, mSuggestions, MATCH_LIMIT);
+    }
+
+    @Benchmark
+    public List<FuzzyMatchSuggestion> fuzzyMatchCompactList() {
+        return mFuzzyMatcher.matchAll(MISSPELLED_QUERY, mCompactSuggestions, MATCH_LIMIT);
+    }
+
+    @Benchmark
+    public List<FuzzyMatchSuggestion> fuzzyMatchIndex() {
+        return mFuzzyMatcher.matchAll(MISSPELLED_QUERY, mFuzzyMatchIndex, MATCH_LIMIT);
+    }
+
+    @Benchmark
+    public List<FuzzyMatchSuggestion> fuzzyMatchCompactListIndex() {
+        return mFuzzyMatcher.matchAll(MISSPELLED_QUERY, mCompactFuzzyMatchIndex, MATCH_LIMIT);
+    }
+
+    @Benchmark
+    public FuzzyMatchIndex buildFuzzyMatchIndex() {
+        return new FuzzyMatchIndex(mCompactSuggestions);
+    }
+}
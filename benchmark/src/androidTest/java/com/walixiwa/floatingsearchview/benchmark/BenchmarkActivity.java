@@ -0,0 +1,43 @@
+package com.walixiwa.floatingsearchview.benchmark;
+
+/**
+ * Copyright (C) 2015 Ari C.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import android.os.Bundle;
+
+import androidx.appcompat.app.AppCompatActivity;
+
+import com.walixiwa.floatingsearchview.FloatingSearchView;
+
+/**
+ * Hosts a {@link FloatingSearchView} for the benchmarks that need
+ * it to be laid out, like typing into the focused search.
+ */
+public class BenchmarkActivity extends AppCompatActivity {
+
+    private FloatingSearchView mSearchView;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        mSearchView = new FloatingSearchView(this);
+        setContentView(mSearchView);
+    }
+
+    public FloatingSearchView getSearchView() {
+        return mSearchView;
+    }
+}
@@ -0,0 +1,90 @@
+package com.walixiwa.floatingsearchview.benchmark;
+
+/**
+ * Copyright (C) 2015 Ari C.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import android.os.Bundle;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.walixiwa.floatingsearchview.suggestions.model.SearchSuggestion;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Synthetic data sets for the benchmarks. They are generated from a fixed
+ * seed, so every run and every release is measured with the same data.
+ * <p/>
+ * Their sizes can be set with the "suggestionCount" and "menuItemCount"
+ * instrumentation arguments.
+ */
+public final class BenchmarkData {
+
+    static final String ARG_SUGGESTION_COUNT = "suggestionCount";
+    static final String ARG_MENU_ITEM_COUNT = "menuItemCount";
+
+    private static final int DEFAULT_SUGGESTION_COUNT = 10000;
+    private static final int DEFAULT_MENU_ITEM_COUNT = 12;
+    private static final long SEED = 42;
+
+    private static final String[] SYLLABLES = {
+            "pro", "gram", "ming", "lan", "guage", "ja", "va", "kot", "lin", "and",
+            "roid", "sea", "rch", "view", "float", "ing", "sug", "ges", "tion", "list"
+    };
+
+    private BenchmarkData() {
+    }
+
+    static int suggestionCount() {
+        return getIntArgument(ARG_SUGGESTION_COUNT, DEFAULT_SUGGESTION_COUNT);
+    }
+
+    public static int menuItemCount() {
+        return getIntArgument(ARG_MENU_ITEM_COUNT, DEFAULT_MENU_ITEM_COUNT);
+    }
+
+    private static int getIntArgument(String name, int defaultValue) {
+        Bundle arguments = InstrumentationRegistry.getArguments();
+        String value = arguments.getString(name);
+        return value != null ? Integer.parseInt(value) : defaultValue;
+    }
+
+    /**
+     * Returns suggestions of one to four words with ids 0 to count - 1.
+     */
+    static List<SearchSuggestion> suggestions(int count) {
+        Random random = new Random(SEED);
+        List<SearchSuggestion> suggestions = new ArrayList<>(count);
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            body.setLength(0);
+            int words = 1 + random.nextInt(4);
+            for (int w = 0; w < words; w++) {
+                if (w > 0) {
+                    body.append(' ');
+                }
+                int syllables = 1 + random.nextInt(3);
+                for (int s = 0; s < syllables; s++) {
+                    body.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+                }
+            }
+            suggestions.add(new BenchmarkSuggestion(body.toString(), i));
+        }
+        return suggestions;
+    }
+}
@@ -0,0 +1,73 @@
+package com.walixiwa.floatingsearchview.benchmark;
+
+/**
+ * Copyright (C) 2015 Ari C.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import android.os.Parcel;
+
+import com.walixiwa.floatingsearchview.suggestions.model.IdentifiableSearchSuggestion;
+
+/**
+ * A plain suggestion, like the ones apps implement.
+ */
+public class BenchmarkSuggestion implements IdentifiableSearchSuggestion {
+
+    private final String mBody;
+    private final long mId;
+
+    public BenchmarkSuggestion(String body, long id) {
+        this.mBody = body;
+        this.mId = id;
+    }
+
+    private BenchmarkSuggestion(Parcel in) {
+        this.mBody = in.readString();
+        this.mId = in.readLong();
+    }
+
+    @Override
+    public String getBody() {
+        return mBody;
+    }
+
+    @Override
+    public long getSuggestionId() {
+        return mId;
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeString(mBody);
+        dest.writeLong(mId);
+    }
+
+    public static final Creator<BenchmarkSuggestion> CREATOR = new Creator<BenchmarkSuggestion>() {
+        @Override
+        public BenchmarkSuggestion createFromParcel(Parcel in) {
+            return new BenchmarkSuggestion(in);
+        }
+
+        @Override
+        public BenchmarkSuggestion[] newArray(int size) {
+            return new BenchmarkSuggestion[size];
+        }
+    };
+}
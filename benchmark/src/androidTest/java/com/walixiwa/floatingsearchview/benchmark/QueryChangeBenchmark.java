@@ -0,0 +1,105 @@
+package com.walixiwa.floatingsearchview.benchmark;
+
+/**
+ * Copyright (C) 2015 Ari C.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import android.widget.EditText;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.annotation.UiThreadTest;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+import androidx.test.rule.ActivityTestRule;
+
+import com.walixiwa.floatingsearchview.FloatingSearchView;
+import com.walixiwa.floatingsearchview.R;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Measures a single keystroke in the focused search, from the text change
+ * to the query change listener being called.
+ */
+@LargeTest
+@RunWith(AndroidJUnit4.class)
+public class QueryChangeBenchmark {
+
+    private static final String QUERY = "floating search view suggestions";
+
+    @Rule
+    public BenchmarkRule mBenchmarkRule = new BenchmarkRule();
+
+    @Rule
+    public ActivityTestRule<BenchmarkActivity> mActivityRule =
+            new ActivityTestRule<>(BenchmarkActivity.class);
+
+    //written by the listeners, so their work can't be optimized away
+    private int mQueryLength;
+
+    @Test
+    @UiThreadTest
+    public void typeWithoutListener() {
+        typeQuery(mActivityRule.getActivity().getSearchView());
+    }
+
+    @Test
+    @UiThreadTest
+    public void typeWithQueryChangeListener() {
+        FloatingSearchView searchView = mActivityRule.getActivity().getSearchView();
+        searchView.setOnQueryChangeListener(new FloatingSearchView.OnQueryChangeListener() {
+            @Override
+            public void onSearchTextChanged(String oldQuery, String newQuery) {
+                mQueryLength = newQuery.length();
+            }
+        });
+        typeQuery(searchView);
+    }
+
+    @Test
+    @UiThreadTest
+    public void typeWithQueryTextChangeListener() {
+        FloatingSearchView searchView = mActivityRule.getActivity().getSearchView();
+        searchView.setOnQueryTextChangeListener(new FloatingSearchView.OnQueryTextChangeListener() {
+            @Override
+            public void onSearchTextChanged(CharSequence oldQuery, CharSequence newQuery) {
+                mQueryLength = newQuery.length();
+            }
+        });
+        typeQuery(searchView);
+    }
+
+    //types the query one character per iteration, starting over when it was typed
+    private void typeQuery(FloatingSearchView searchView) {
+        searchView.setSearchFocused(true);
+        EditText searchInput = (EditText) searchView.findViewById(R.id.search_bar_text);
+
+        BenchmarkState state = mBenchmarkRule.getState();
+        int typed = 0;
+        while (state.keepRunning()) {
+            if (typed == QUERY.length()) {
+                state.pauseTiming();
+                searchInput.getText().clear();
+                typed = 0;
+                state.resumeTiming();
+            }
+            searchInput.append(QUERY, typed, typed + 1);
+            typed++;
+        }
+    }
+}
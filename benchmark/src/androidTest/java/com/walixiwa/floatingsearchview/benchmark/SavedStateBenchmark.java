@@ -0,0 +1,134 @@
+package com.walixiwa.floatingsearchview.benchmark;
+
+/**
+ * Copyright (C) 2015 Ari C.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import android.os.Parcel;
+import android.os.Parcelable;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+import androidx.test.platform.app.InstrumentationRegistry;
+import androidx.test.rule.ActivityTestRule;
+
+import com.walixiwa.floatingsearchview.FloatingSearchView;
+import com.walixiwa.floatingsearchview.suggestions.SuggestionsParceler;
+import com.walixiwa.floatingsearchview.suggestions.model.SearchSuggestion;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+
+/**
+ * Measures saving and restoring suggestions, both on their own and as
+ * part of the search view's saved instance state.
+ */
+@LargeTest
+@RunWith(AndroidJUnit4.class)
+public class SavedStateBenchmark {
+
+    @Rule
+    public BenchmarkRule mBenchmarkRule = new BenchmarkRule();
+
+    @Rule
+    public ActivityTestRule<BenchmarkActivity> mActivityRule =
+            new ActivityTestRule<>(BenchmarkActivity.class);
+
+    private List<SearchSuggestion> mSuggestions;
+    private Parcel mWrittenSuggestions;
+    private ClassLoader mClassLoader;
+
+    //written by the benchmarks, so their work can't be optimized away
+    private int mResultSize;
+
+    @Before
+    public void setUp() throws Throwable {
+        mSuggestions = BenchmarkData.suggestions(BenchmarkData.suggestionCount());
+        mWrittenSuggestions = Parcel.obtain();
+        SuggestionsParceler.writeSuggestions(mWrittenSuggestions, mSuggestions, 0);
+        mClassLoader = getClass().getClassLoader();
+
+        mActivityRule.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                FloatingSearchView searchView = mActivityRule.getActivity().getSearchView();
+                searchView.setSearchFocused(true);
+                searchView.swapSuggestions(mSuggestions);
+            }
+        });
+        //lets the suggestions section be measured and the suggestions applied
+        InstrumentationRegistry.getInstrumentation().waitForIdleSync();
+    }
+
+    @After
+    public void tearDown() {
+        mWrittenSuggestions.recycle();
+    }
+
+    @Test
+    public void writeSuggestions() {
+        BenchmarkState state = mBenchmarkRule.getState();
+        Parcel parcel = Parcel.obtain();
+        try {
+            while (state.keepRunning()) {
+                parcel.setDataPosition(0);
+                SuggestionsParceler.writeSuggestions(parcel, mSuggestions, 0);
+                mResultSize += parcel.dataPosition();
+            }
+        } finally {
+            parcel.recycle();
+        }
+    }
+
+    @Test
+    public void readSuggestions() {
+        BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            mWrittenSuggestions.setDataPosition(0);
+            mResultSize += SuggestionsParceler.readSuggestions(mWrittenSuggestions, mClassLoader).size();
+        }
+    }
+
+    @Test
+    public void saveAndRestoreSearchViewState() throws Throwable {
+        mActivityRule.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                FloatingSearchView searchView = mActivityRule.getActivity().getSearchView();
+
+                BenchmarkState state = mBenchmarkRule.getState();
+                while (state.keepRunning()) {
+                    Parcel parcel = Parcel.obtain();
+                    try {
+                        parcel.writeParcelable(searchView.onSaveInstanceState(), 0);
+                        mResultSize += parcel.dataSize();
+                        parcel.setDataPosition(0);
+                        Parcelable restored = parcel.readParcelable(mClassLoader);
+                        searchView.onRestoreInstanceState(restored);
+                    } finally {
+                        parcel.recycle();
+                    }
+                }
+            }
+        });
+    }
+}
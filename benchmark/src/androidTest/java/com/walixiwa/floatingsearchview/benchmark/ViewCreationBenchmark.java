@@ -0,0 +1,121 @@
+package com.walixiwa.floatingsearchview.benchmark;
+
+/**
+ * Copyright (C) 2015 Ari C.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import android.view.LayoutInflater;
+import android.view.View;
+import android.widget.FrameLayout;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+import androidx.test.rule.ActivityTestRule;
+
+import com.walixiwa.floatingsearchview.FloatingSearchView;
+import com.walixiwa.floatingsearchview.benchmark.test.R;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Measures creating a search view and attaching it to a window, with its
+ * suggestions list created eagerly and with the list only created on first
+ * use, which is what a host pays for the search view on its startup path.
+ * Eager suggestions are created when the view is attached, so every case
+ * includes attaching the view. Views are both inflated from XML and built
+ * in code.
+ */
+@LargeTest
+@RunWith(AndroidJUnit4.class)
+public class ViewCreationBenchmark {
+
+    @Rule
+    public BenchmarkRule mBenchmarkRule = new BenchmarkRule();
+
+    @Rule
+    public ActivityTestRule<BenchmarkActivity> mActivityRule =
+            new ActivityTestRule<>(BenchmarkActivity.class);
+
+    private interface ViewFactory {
+
+        View create();
+    }
+
+    @Test
+    public void inflateWithEagerSuggestions() throws Throwable {
+        measureCreation(inflating(R.layout.benchmark_search_view_eager));
+    }
+
+    @Test
+    public void inflateWithLazySuggestions() throws Throwable {
+        measureCreation(inflating(R.layout.benchmark_search_view_lazy));
+    }
+
+    @Test
+    public void constructWithEagerSuggestions() throws Throwable {
+        measureCreation(constructing(false));
+    }
+
+    @Test
+    public void constructWithLazySuggestions() throws Throwable {
+        measureCreation(constructing(true));
+    }
+
+    private ViewFactory inflating(final int layoutResId) {
+        return new ViewFactory() {
+            @Override
+            public View create() {
+                return LayoutInflater.from(mActivityRule.getActivity()).inflate(layoutResId, null, false);
+            }
+        };
+    }
+
+    private ViewFactory constructing(final boolean lazy) {
+        return new ViewFactory() {
+            @Override
+            public View create() {
+                FloatingSearchView searchView = new FloatingSearchView(mActivityRule.getActivity());
+                searchView.setLazySuggestions(lazy);
+                return searchView;
+            }
+        };
+    }
+
+    private void measureCreation(final ViewFactory factory) throws Throwable {
+        mActivityRule.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                FrameLayout container = new FrameLayout(mActivityRule.getActivity());
+                mActivityRule.getActivity().addContentView(container,
+                        new FrameLayout.LayoutParams(FrameLayout.LayoutParams.MATCH_PARENT,
+                                FrameLayout.LayoutParams.MATCH_PARENT));
+
+                BenchmarkState state = mBenchmarkRule.getState();
+                while (state.keepRunning()) {
+                    //attaching creates eager suggestions
+                    container.addView(factory.create());
+
+                    state.pauseTiming();
+                    container.removeAllViews();
+                    state.resumeTiming();
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,97 @@
+package com.walixiwa.floatingsearchview.util.view;
+
+/**
+ * Copyright (C) 2015 Ari C.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import android.annotation.SuppressLint;
+import android.graphics.drawable.ColorDrawable;
+import android.view.MenuItem;
+
+import androidx.appcompat.view.menu.MenuBuilder;
+import androidx.appcompat.view.menu.MenuItemImpl;
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.walixiwa.floatingsearchview.benchmark.BenchmarkData;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures splitting the menu items into action items and overflow items,
+ * which the menu does on every layout of the search bar.
+ * <p/>
+ * It lives in the menu's package, so that it can call the package-private
+ * {@link MenuView#partitionMenuItems} directly.
+ */
+@LargeTest
+@RunWith(AndroidJUnit4.class)
+public class MenuPartitionBenchmark {
+
+    private static final int AVAIL_ITEM_ROOM = 4;
+
+    @Rule
+    public BenchmarkRule mBenchmarkRule = new BenchmarkRule();
+
+    private List<MenuItemImpl> mMenuItems;
+    private final List<MenuItemImpl> mShownAsAction = new ArrayList<>();
+    private final Random mRandom = new Random(42);
+
+    //written by the benchmark, so its work can't be optimized away
+    private int mOverflowCount;
+
+    @SuppressLint("RestrictedApi")
+    @Before
+    public void setUp() {
+        MenuBuilder menuBuilder = new MenuBuilder(
+                InstrumentationRegistry.getInstrumentation().getTargetContext());
+        int count = BenchmarkData.menuItemCount();
+        for (int i = 0; i < count; i++) {
+            MenuItem item = menuBuilder.add(0, i, count - i, "Item " + i);
+            item.setIcon(new ColorDrawable(0xff000000 | i));
+            //every other item asks to be shown as an action
+            item.setShowAsAction(i % 2 == 0 ? MenuItem.SHOW_AS_ACTION_IF_ROOM
+                    : MenuItem.SHOW_AS_ACTION_NEVER);
+        }
+        mMenuItems = new ArrayList<>(menuBuilder.getVisibleItems());
+    }
+
+    @Test
+    public void partitionMenuItems() {
+        BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            //partitioning sorts in place, so undo the sort outside of the timing
+            state.pauseTiming();
+            Collections.shuffle(mMenuItems, mRandom);
+            mShownAsAction.clear();
+            state.resumeTiming();
+
+            if (MenuView.partitionMenuItems(mMenuItems, AVAIL_ITEM_ROOM, mShownAsAction)) {
+                mOverflowCount++;
+            }
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.walixiwa.floatingsearchview.suggestions;
+
+/**
+ * Copyright (C) 2015 Ari C.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+import android.os.BadParcelableException;
+import android.os.Parcel;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.walixiwa.floatingsearchview.suggestions.model.SearchSuggestion;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumented tests of {@link SuggestionsParceler}, which need a real {@link Parcel}.
+ */
+@RunWith(AndroidJUnit4.class)
+public class SuggestionsParcelerTest {
+
+    private Parcel mParcel;
+    private ClassLoader mClassLoader;
+
+    @Before
+    public void setUp() {
+        mParcel = Parcel.obtain();
+        mClassLoader = getClass().getClassLoader();
+    }
+
+    @After
+    public void tearDown() {
+        mParcel.recycle();
+    }
+
+    @Test
+    public void readSuggestions_readsMixedRunsInOrder() {
+        List<SearchSuggestion> suggestions = Arrays.<SearchSuggestion>asList(
+                new BodySuggestion("a"), new BodySuggestion("b"),
+                new LabeledSuggestion("c", "label"),
+                new BodySuggestion("d"),
+                new LabeledSuggestion("e", "label"), new LabeledSuggestion("f", null));
+
+        List<SearchSuggestion> read = writeAndRead(suggestions);
+
+        assertEquals(suggestions.size(), read.size());
+        for (int i = 0; i < suggestions.size(); i++) {
+            assertSame(suggestions.get(i).getClass(), read.get(i).getClass());
+            assertEquals(suggestions.get(i).getBody(), read.get(i).getBody());
+        }
+        assertNull(((LabeledSuggestion) read.get(5)).mLabel);
+        assertEquals("label", ((LabeledSuggestion) read.get(4)).mLabel);
+    }
+
+    @Test
+    public void readSuggestions_readsASingleRun() {
+        List<SearchSuggestion> suggestions = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            suggestions.add(new BodySuggestion("suggestion " + i));
+        }
+
+        List<SearchSuggestion> read = writeAndRead(suggestions);
+
+        assertEquals(100, read.size());
+        assertEquals("suggestion 99", read.get(99).getBody());
+    }
+
+    @Test
+    public void readSuggestions_readsNull() {
+        assertNull(writeAndRead(null));
+    }
+
+    @Test
+    public void readSuggestions_readsAnEmptyList() {
+        assertTrue(writeAndRead(Collections.<SearchSuggestion>emptyList()).isEmpty());
+    }
+
+    @Test
+    public void readSuggestions_leavesTheParcelAfterTheSuggestions() {
+        SuggestionsParceler.writeSuggestions(mParcel,
+                Arrays.<SearchSuggestion>asList(new BodySuggestion("a"), new LabeledSuggestion("b", "c")), 0);
+        mParcel.writeString("after");
+        mParcel.setDataPosition(0);
+
+        SuggestionsParceler.readSuggestions(mParcel, mClassLoader);
+        assertEquals("after", mParcel.readString());
+    }
+
+    @Test(expected = BadParcelableException.class)
+    public void readSuggestions_rejectsARunLongerThanTheList() {
+        mParcel.writeInt(2);
+        mParcel.writeInt(3);
+        mParcel.writeParcelable(new BodySuggestion("a"), 0);
+        mParcel.setDataPosition(0);
+
+        SuggestionsParceler.readSuggestions(mParcel, mClassLoader);
+    }
+
+    @Test(expected = BadParcelableException.class)
+    public void readSuggestions_rejectsAnEmptyRun() {
+        mParcel.writeInt(1);
+        mParcel.writeInt(0);
+        mParcel.setDataPosition(0);
+
+        SuggestionsParceler.readSuggestions(mParcel, mClassLoader);
+    }
+
+    @Test(expected = BadParcelableException.class)
+    public void readSuggestions_rejectsAMissingSuggestion() {
+        mParcel.writeInt(1);
+        mParcel.writeInt(1);
+        mParcel.writeParcelable(null, 0);
+        mParcel.setDataPosition(0);
+
+        SuggestionsParceler.readSuggestions(mParcel, mClassLoader);
+    }
+
+    private List<SearchSuggestion> writeAndRead(List<SearchSuggestion> suggestions) {
+        SuggestionsParceler.writeSuggestions(mParcel, suggestions, 0);
+        int end = mParcel.dataPosition();
+        mParcel.setDataPosition(0);
+        List<SearchSuggestion> read = SuggestionsParceler.readSuggestions(mParcel, mClassLoader);
+        assertEquals(end, mParcel.dataPosition());
+        return read;
+    }
+
+    public static class BodySuggestion implements SearchSuggestion {
+
+        final String mBody;
+
+        BodySuggestion(String body) {
+            this.mBody = body;
+        }
+
+        @Override
+        public String getBody() {
+            return mBody;
+        }
+
+        @Override
+        public int describeContents() {
+            return 0;
+        }
+
+        @Override
+        public void writeToParcel(Parcel dest, int flags) {
+            dest.writeString(mBody);
+        }
+
+        public static final Creator<BodySuggestion> CREATOR = new Creator<BodySuggestion>() {
+            @Override
+            public BodySuggestion createFromParcel(Parcel in) {
+                return new BodySuggestion(in.readString());
+            }
+
+            @Override
+            public BodySuggestion[] newArray(int size) {
+                return new BodySuggestion[size];
+            }
+        };
+    }
+
+    public static class LabeledSuggestion implements SearchSuggestion {
+
+        final String mBody;
+        final String mLabel;
+
+        LabeledSuggestion(String body, String label) {
+            this.mBody = body;
+            this.mLabel = label;
+        }
+
+        @Override
+        public String getBody() {
+            return mBody;
+        }
+
+        @Override
+        public int describeContents() {
+            return 0;
+        }
+
+        @Override
+        public void writeToParcel(Parcel dest, int flags) {
+            dest.writeString(mBody);
+            dest.writeString(mLabel);
+        }
+
+        public static final Creator<LabeledSuggestion> CREATOR = new Creator<LabeledSuggestion>() {
+            @Override
+            public LabeledSuggestion createFromParcel(Parcel in) {
+                return new LabeledSuggestion(in.readString(), in.readString());
+            }
+
+            @Override
+            public LabeledSuggestion[] newArray(int size) {
+                return new LabeledSuggestion[size];
+            }
+        };
+    }
+}
@@ -29,9 +29,15 @@ import android.content.res.TypedArray;
 import android.graphics.Color;
 import android.graphics.drawable.ColorDrawable;
 import android.graphics.drawable.Drawable;
+import android.os.BadParcelableException;
 import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.MessageQueue;
 import android.os.Parcel;
 import android.os.Parcelable;
+import android.text.Editable;
+import android.text.TextUtils;
 import android.util.AttributeSet;
 import android.view.GestureDetector;
 import android.view.KeyEvent;
@@ -40,6 +46,7 @@ import android.view.MenuItem;
 import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewGroup;
+import android.view.ViewStub;
 import android.view.ViewTreeObserver;
 import android.view.WindowManager;
 import android.view.animation.Interpolator;
@@ -59,14 +66,32 @@ import androidx.appcompat.view.menu.MenuBuilder;
 import androidx.appcompat.view.menu.MenuBuilder.Callback;
 import androidx.cardview.widget.CardView;
 import androidx.core.graphics.drawable.DrawableCompat;
+import androidx.core.os.CancellationSignal;
+import androidx.core.os.TraceCompat;
 import androidx.core.view.ViewCompat;
 import androidx.core.view.ViewPropertyAnimatorListenerAdapter;
 import androidx.core.view.ViewPropertyAnimatorUpdateListener;
+import androidx.dynamicanimation.animation.DynamicAnimation;
+import androidx.dynamicanimation.animation.SpringAnimation;
+import androidx.dynamicanimation.animation.SpringForce;
+import androidx.lifecycle.ViewModelStoreOwner;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.walixiwa.floatingsearchview.suggestions.AsyncSuggestionsDiffer;
+import com.walixiwa.floatingsearchview.suggestions.CompactSuggestionList;
+import com.walixiwa.floatingsearchview.suggestions.PagedSuggestionList;
 import com.walixiwa.floatingsearchview.suggestions.SearchSuggestionsAdapter;
+import com.walixiwa.floatingsearchview.suggestions.SuggestionCache;
+import com.walixiwa.floatingsearchview.suggestions.SuggestionFilter;
+import com.walixiwa.floatingsearchview.suggestions.SuggestionProvider;
+import com.walixiwa.floatingsearchview.suggestions.SuggestionsParceler;
+import com.walixiwa.floatingsearchview.suggestions.history.SearchHistory;
 import com.walixiwa.floatingsearchview.suggestions.model.SearchSuggestion;
+import com.walixiwa.floatingsearchview.util.QueryPipeline;
+import com.walixiwa.floatingsearchview.util.ReversedList;
+import com.walixiwa.floatingsearchview.util.TintedDrawableCache;
 import com.walixiwa.floatingsearchview.util.Util;
 import com.walixiwa.floatingsearchview.util.adapter.GestureDetectorListenerAdapter;
 import com.walixiwa.floatingsearchview.util.adapter.OnItemTouchListenerAdapter;
@@ -79,6 +104,9 @@ import java.lang.annotation.RetentionPolicy;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.Executor;
 
 /**
  * A search UI widget that implements a floating search box also called persistent
@@ -93,6 +121,11 @@ public class FloatingSearchView extends FrameLayout {
     private static final long CLEAR_BTN_FADE_ANIM_DURATION = 500;
     private static final int CLEAR_BTN_WIDTH = 48;
     private static final int LEFT_MENU_WIDTH_AND_MARGIN_START = 52;
+    //the number of rows a RecyclerView's recycled view pool keeps by default
+    private static final int DEFAULT_RECYCLED_VIEW_POOL_SIZE = 5;
+    //the size each suggestions pool was raised to, a pool can be shared by several search views
+    private static final Map<RecyclerView.RecycledViewPool, Integer> sPrewarmedPoolSizes = new WeakHashMap<>();
+    private static final int DEFAULT_MAX_SAVED_SUGGESTIONS = 100;
 
     private final int BACKGROUND_DRAWABLE_ALPHA_SEARCH_FOCUSED = 150;
     private final int BACKGROUND_DRAWABLE_ALPHA_SEARCH_NOT_FOCUSED = 0;
@@ -128,6 +161,7 @@ public class FloatingSearchView extends FrameLayout {
     private final boolean ATTRS_SEARCH_BAR_SHOW_SEARCH_KEY_DEFAULT = true;
     private final int ATTRS_SUGGESTION_TEXT_SIZE_SP_DEFAULT = 18;
     private final boolean ATTRS_SHOW_DIM_BACKGROUND_DEFAULT = true;
+    private final boolean ATTRS_LAZY_SUGGESTIONS_DEFAULT = false;
 
     private final Interpolator SUGGEST_ITEM_ADD_ANIM_INTERPOLATOR = new LinearInterpolator();
     private final int ATTRS_SUGGESTION_ANIM_DURATION_DEFAULT = 250;
@@ -149,8 +183,22 @@ public class FloatingSearchView extends FrameLayout {
     private int mSearchInputTextColor = -1;
     private int mSearchInputHintColor = -1;
     private View mSearchInputParent;
+    //the previous query's text, and its string if that was already created
+    private final StringBuilder mOldQueryText = new StringBuilder();
     private String mOldQuery = "";
     private OnQueryChangeListener mQueryListener;
+    private OnQueryTextChangeListener mQueryTextListener;
+    private QueryPipeline mQueryPipeline;
+    private SuggestionProvider mSuggestionProvider;
+    private SuggestionCache mSuggestionCache;
+    private SuggestionFilter mLocalPrefixFilter;
+    private String mLastProvidedQuery;
+    private List<? extends SearchSuggestion> mLastProvidedSuggestions;
+    private SearchHistory mSearchHistory;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private CancellationSignal mSuggestionRequestSignal;
+    private String mSuggestionRequestQuery;
+    private boolean mIsSuggestionRequestProgressShown;
     private ImageView mLeftAction;
     private OnLeftMenuClickListener mOnMenuClickListener;
     private OnHomeActionClickListener mOnHomeActionClickListener;
@@ -180,18 +228,50 @@ public class FloatingSearchView extends FrameLayout {
     private int mDividerColor;
 
     private RelativeLayout mSuggestionsSection;
+    private ViewStub mSuggestionListStub;
+    private boolean mLazySuggestions;
+    private RecyclerView.RecycledViewPool mSuggestionsViewPool;
+    private MessageQueue.IdleHandler mPrewarmIdleHandler;
     private View mSuggestionListContainer;
     private RecyclerView mSuggestionsList;
     private int mSuggestionTextColor = -1;
     private int mSuggestionRightIconColor;
     private SearchSuggestionsAdapter mSuggestionsAdapter;
     private SearchSuggestionsAdapter.OnBindSuggestionCallback mOnBindSuggestionCallback;
+    private SearchSuggestionsAdapter.OnBindSuggestionPayloadCallback mOnBindSuggestionPayloadCallback;
+    private boolean mHighlightQueryInSuggestions;
     private int mSuggestionsTextSizePx;
     private boolean mIsInitialLayout = true;
     private boolean mIsSuggestionsSecHeightSet;
     private boolean mShowMoveUpSuggestion = ATTRS_SHOW_MOVE_UP_SUGGESTION_DEFAULT;
+    private boolean mIncrementalSuggestionUpdates;
+    private AsyncSuggestionsDiffer mSuggestionsDiffer;
     private OnSuggestionsListHeightChanged mOnSuggestionsListHeightChanged;
     private long mSuggestionSectionAnimDuration;
+    private int mSuggestionRowHeight;
+    private boolean mPredictSuggestionsHeight;
+    private int mMeasuredSuggestionRowHeight;
+    private boolean mSuggestionsSpringAnimEnabled;
+    private SpringAnimation mSuggestionsSpring;
+    private boolean mScrollToLastSuggestionOnSpringEnd;
+    private boolean mCoalesceSuggestionSwaps;
+    private List<? extends SearchSuggestion> mPendingSuggestions;
+    private boolean mPendingSuggestionsWithAnim;
+    private int mCoalescedSuggestionSwapCount;
+    private boolean mSaveSuggestions = true;
+    private int mMaxSavedSuggestions = DEFAULT_MAX_SAVED_SUGGESTIONS;
+    private boolean mRetainStateOnConfigChange;
+    private RetainedSearchState mRetainedState;
+    private final Runnable mApplyPendingSuggestionsRunnable = new Runnable() {
+        @Override
+        public void run() {
+            List<? extends SearchSuggestion> suggestions = mPendingSuggestions;
+            mPendingSuggestions = null;
+            if (suggestions != null) {
+                applySwapSuggestions(suggestions, mPendingSuggestionsWithAnim);
+            }
+        }
+    };
 
     //An interface for implementing a listener that will get notified when the suggestions
     //section's height is set. This is to be used internally only.
@@ -228,6 +308,26 @@ public class FloatingSearchView extends FrameLayout {
         void onSearchTextChanged(String oldQuery, String newQuery);
     }
 
+    /**
+     * Same as {@link OnQueryChangeListener}, but without creating
+     * strings for the queries.
+     */
+    public interface OnQueryTextChangeListener {
+
+        /**
+         * Called when the query has changed. It will
+         * be invoked when one or more characters in the
+         * query was changed.
+         * <p/>
+         * Both queries are only valid during this call, and must
+         * be copied if they are needed afterwards.
+         *
+         * @param oldQuery the previous query
+         * @param newQuery the new query
+         */
+        void onSearchTextChanged(CharSequence oldQuery, CharSequence newQuery);
+    }
+
     /**
      * Interface for implementing a listener to listen
      * to when the current search has completed.
@@ -340,6 +440,15 @@ public class FloatingSearchView extends FrameLayout {
     }
 
     private void init(AttributeSet attrs) {
+        TraceCompat.beginSection("FloatingSearchView.init");
+        try {
+            initViews(attrs);
+        } finally {
+            TraceCompat.endSection();
+        }
+    }
+
+    private void initViews(AttributeSet attrs) {
 
         mHostActivity = getHostActivity();
 
@@ -360,8 +469,7 @@ public class FloatingSearchView extends FrameLayout {
         mDivider = findViewById(R.id.divider);
 
         mSuggestionsSection = (RelativeLayout) findViewById(R.id.search_suggestions_section);
-        mSuggestionListContainer = findViewById(R.id.suggestions_list_container);
-        mSuggestionsList = (RecyclerView) findViewById(R.id.suggestions_list);
+        mSuggestionListStub = (ViewStub) findViewById(R.id.suggestions_list_stub);
 
         setupViews(attrs);
     }
@@ -379,9 +487,13 @@ public class FloatingSearchView extends FrameLayout {
 
     private void initDrawables() {
         mMenuBtnDrawable = new DrawerArrowDrawable(getContext());
-        mIconClear = Util.getWrappedDrawable(getContext(), R.drawable.ic_clear_black_24dp);
-        mIconBackArrow = Util.getWrappedDrawable(getContext(), R.drawable.ic_arrow_back_black_24dp);
-        mIconSearch = Util.getWrappedDrawable(getContext(), R.drawable.ic_search_black_24dp);
+        //tinted with the default colors, so that they are usually
+        //shared with other search views and don't need to be re-tinted
+        int leftActionColor = Util.getColor(getContext(), R.color.left_action_icon);
+        mIconClear = TintedDrawableCache.get(getContext(), R.drawable.ic_clear_black_24dp,
+                Util.getColor(getContext(), R.color.clear_btn_color));
+        mIconBackArrow = TintedDrawableCache.get(getContext(), R.drawable.ic_arrow_back_black_24dp, leftActionColor);
+        mIconSearch = TintedDrawableCache.get(getContext(), R.drawable.ic_search_black_24dp, leftActionColor);
     }
 
     @Override
@@ -399,13 +511,13 @@ public class FloatingSearchView extends FrameLayout {
             final int finalHeight = mSuggestionsSection.getHeight() + addedHeight;
             mSuggestionsSection.getLayoutParams().height = finalHeight;
             mSuggestionsSection.requestLayout();
-            ViewTreeObserver vto = mSuggestionListContainer.getViewTreeObserver();
+            ViewTreeObserver vto = mSuggestionsSection.getViewTreeObserver();
             vto.addOnGlobalLayoutListener(new ViewTreeObserver.OnGlobalLayoutListener() {
                 @Override
                 public void onGlobalLayout() {
 
                     if (mSuggestionsSection.getHeight() == finalHeight) {
-                        Util.removeGlobalLayoutObserver(mSuggestionListContainer, this);
+                        Util.removeGlobalLayoutObserver(mSuggestionsSection, this);
 
                         mIsSuggestionsSecHeightSet = true;
                         moveSuggestListToInitialPos();
@@ -439,9 +551,17 @@ public class FloatingSearchView extends FrameLayout {
 
         setupQueryBar();
 
-        if (!isInEditMode()) {
-            setupSuggestionSection();
+        int cardViewBottomPadding = Util.dpToPx(CARD_VIEW_CORNERS_AND_TOP_BOTTOM_SHADOW_HEIGHT);
+        //move up the suggestions section enough to cover the search bar
+        //card's bottom left and right corners
+        mSuggestionsSection.setTranslationY(-cardViewBottomPadding);
+
+        if (isInEditMode()) {
+            //lets the layout preview show the list, which is never set up there
+            inflateSuggestionList();
         }
+        //otherwise the list is only created once this view is attached, so that a
+        //view built in code can still be made lazy with setLazySuggestions(boolean)
     }
 
     private void applyXmlAttributes(AttributeSet attrs) {
@@ -455,7 +575,8 @@ public class FloatingSearchView extends FrameLayout {
                     ViewGroup.LayoutParams.MATCH_PARENT);
             mQuerySection.getLayoutParams().width = searchBarWidth;
             mDivider.getLayoutParams().width = searchBarWidth;
-            mSuggestionListContainer.getLayoutParams().width = searchBarWidth;
+            //the stub's layout params are handed to the suggestions list container when inflated
+            mSuggestionListStub.getLayoutParams().width = searchBarWidth;
             int searchBarLeftMargin = a.getDimensionPixelSize(
                     R.styleable.FloatingSearchView_floatingSearch_searchBarMarginLeft,
                     ATTRS_SEARCH_BAR_MARGIN_DEFAULT);
@@ -518,6 +639,8 @@ public class FloatingSearchView extends FrameLayout {
                     , Util.getColor(getContext(), R.color.hint_color)));
             setSuggestionRightIconColor(a.getColor(R.styleable.FloatingSearchView_floatingSearch_suggestionRightIconColor
                     , Util.getColor(getContext(), R.color.gray_active_icon)));
+            mLazySuggestions = a.getBoolean(R.styleable.FloatingSearchView_floatingSearch_lazySuggestions,
+                    ATTRS_LAZY_SUGGESTIONS_DEFAULT);
         } finally {
             a.recycle();
         }
@@ -602,20 +725,43 @@ public class FloatingSearchView extends FrameLayout {
                 if (mSkipTextChangeEvent || !mIsFocused) {
                     mSkipTextChangeEvent = false;
                 } else {
-                    if (mSearchInput.getText().toString().length() != 0 &&
+                    Editable query = mSearchInput.getText();
+                    if (query.length() != 0 &&
                             mClearButton.getVisibility() == View.INVISIBLE) {
                         mClearButton.setAlpha(0.0f);
                         mClearButton.setVisibility(View.VISIBLE);
                         ViewCompat.animate(mClearButton).alpha(1.0f).setDuration(CLEAR_BTN_FADE_ANIM_DURATION).start();
-                    } else if (mSearchInput.getText().toString().length() == 0) {
+                    } else if (query.length() == 0) {
                         mClearButton.setVisibility(View.INVISIBLE);
                     }
 
-                    if (mQueryListener != null && mIsFocused && !mOldQuery.equals(mSearchInput.getText().toString())) {
-                        mQueryListener.onSearchTextChanged(mOldQuery, mSearchInput.getText().toString());
+                    //the query is turned into a string at most once, and only if
+                    //a listener needs one, it then becomes the next old query
+                    String newQuery = null;
+                    boolean changed = !TextUtils.equals(mOldQueryText, query);
+                    if (mQueryListener != null && changed) {
+                        newQuery = query.toString();
+                        mQueryListener.onSearchTextChanged(getOldQuery(), newQuery);
+                    }
+
+                    if (mQueryTextListener != null && changed) {
+                        mQueryTextListener.onSearchTextChanged(mOldQueryText, query);
                     }
 
-                    mOldQuery = mSearchInput.getText().toString();
+                    if (mQueryPipeline != null) {
+                        if (newQuery == null) {
+                            newQuery = query.toString();
+                        }
+                        dispatchQueryChange(getOldQuery(), newQuery);
+                    }
+
+                    if (mHighlightQueryInSuggestions && mSuggestionsAdapter != null) {
+                        mSuggestionsAdapter.setHighlightQuery(query);
+                    }
+
+                    mOldQueryText.setLength(0);
+                    mOldQueryText.append(query);
+                    mOldQuery = newQuery;
                 }
             }
 
@@ -637,6 +783,9 @@ public class FloatingSearchView extends FrameLayout {
             public boolean onKey(View view, int keyCode, KeyEvent keyEvent) {
 
                 if (mShowSearchKey && keyCode == KeyEvent.KEYCODE_ENTER) {
+                    if (mSearchHistory != null) {
+                        mSearchHistory.add(getQuery());
+                    }
                     if (mSearchListener != null) {
                         mSearchListener.onSearchAction(getQuery());
                     }
@@ -746,8 +895,10 @@ public class FloatingSearchView extends FrameLayout {
      */
     public void setBackgroundColor(int color) {
         mBackgroundColor = color;
-        if (mQuerySection != null && mSuggestionsList != null) {
+        if (mQuerySection != null) {
             mQuerySection.setCardBackgroundColor(color);
+        }
+        if (mSuggestionsList != null) {
             mSuggestionsList.setBackgroundColor(color);
         }
     }
@@ -786,6 +937,141 @@ public class FloatingSearchView extends FrameLayout {
         this.mSuggestionSectionAnimDuration = duration;
     }
 
+    /**
+     * Sets whether suggestion swaps are applied on the next animation frame
+     * instead of right away. All lists swapped in before that frame are
+     * coalesced, only the last one is bound and animated. This is useful
+     * when several sources, like a cache and the network, deliver their
+     * results in quick succession.
+     * <p/>
+     * Disabling this applies a pending swap right away.
+     *
+     * @param coalesce true to coalesce the swaps requested within a frame
+     */
+    public void setCoalesceSuggestionSwaps(boolean coalesce) {
+        this.mCoalesceSuggestionSwaps = coalesce;
+        if (!coalesce && mPendingSuggestions != null) {
+            removeCallbacks(mApplyPendingSuggestionsRunnable);
+            mApplyPendingSuggestionsRunnable.run();
+        }
+    }
+
+    /**
+     * Sets whether the current suggestions are kept in this view's saved
+     * state. If not, only the query is kept, and when the view is restored
+     * with the search focused, the query is passed to the query pipeline
+     * or suggestion provider again, if one is set, to get its suggestions.
+     * <p/>
+     * Not keeping the suggestions makes the saved state smaller, which
+     * helps to avoid a {@link android.os.TransactionTooLargeException}
+     * with large or heavy suggestions.
+     *
+     * @param save true to keep the suggestions in the saved state
+     */
+    public void setSaveSuggestions(boolean save) {
+        this.mSaveSuggestions = save;
+    }
+
+    /**
+     * Sets whether the suggestions, query and in-flight suggestion request
+     * are kept in memory when the host Activity is recreated after a
+     * configuration change, like a rotation. The recreated view then shows
+     * the same suggestions right away, without them being parceled, and
+     * receives the results of the request that was in flight.
+     * <p/>
+     * The saved state set up with {@link #setSaveSuggestions(boolean)} is
+     * still used when the Activity is recreated after its process died.
+     * <p/>
+     * This only has an effect if the host Activity is a {@link ViewModelStoreOwner},
+     * for example an AppCompatActivity, and this view has an id that is unique
+     * in the Activity. A view without an id is never retained.
+     *
+     * @param retain true to keep the state in memory across configuration changes
+     * @see RetainedSearchState
+     */
+    public void setRetainStateOnConfigurationChange(boolean retain) {
+        this.mRetainStateOnConfigChange = retain;
+    }
+
+    /**
+     * Sets the maximum number of suggestions that are kept in this view's
+     * saved state. If there are more suggestions, only the first ones are
+     * kept. The default is 100.
+     *
+     * @param max the maximum number of suggestions to keep
+     * @see #setSaveSuggestions(boolean)
+     */
+    public void setMaxSavedSuggestions(int max) {
+        this.mMaxSavedSuggestions = Math.max(max, 0);
+    }
+
+    /**
+     * Returns the number of suggestion swaps that were replaced by a later
+     * swap within the same frame, and therefore never applied, since
+     * this view was created.
+     *
+     * @return the number of coalesced suggestion swaps
+     * @see #setCoalesceSuggestionSwaps(boolean)
+     */
+    public int getCoalescedSuggestionSwapCount() {
+        return mCoalescedSuggestionSwapCount;
+    }
+
+    /**
+     * Sets whether the suggestions list expands and collapses with a spring
+     * animation instead of a fixed duration one.
+     * <p/>
+     * When new suggestions arrive while the list is still animating, the
+     * spring is redirected towards the new height, keeping its current
+     * velocity, instead of the animation being restarted. This makes the
+     * list move smoothly when suggestions are swapped on every keystroke.
+     * The duration set with {@link #setSuggestionsAnimDuration(long)}
+     * is ignored in this mode.
+     *
+     * @param enabled true to animate the suggestions list with a spring
+     */
+    public void setSuggestionsSpringAnimEnabled(boolean enabled) {
+        if (!enabled && mSuggestionsSpring != null) {
+            mSuggestionsSpring.cancel();
+        }
+        this.mSuggestionsSpringAnimEnabled = enabled;
+    }
+
+    /**
+     * Sets a fixed height for the suggestion rows. When set, the height of
+     * the suggestions list is computed as soon as new suggestions are swapped
+     * in, and the expand/collapse animation starts in the same frame, instead
+     * of after the new rows were laid out.
+     * <p/>
+     * Only set this if all rows have the same height, i.e. if the
+     * suggestions' text never wraps and custom binding doesn't change
+     * the rows' height.
+     *
+     * @param heightPx the height of a single suggestion row in pixels,
+     *                 or 0 to measure the rows after each swap
+     */
+    public void setSuggestionRowHeight(int heightPx) {
+        this.mSuggestionRowHeight = Math.max(heightPx, 0);
+    }
+
+    /**
+     * Sets whether the height of the suggestions list should be predicted from
+     * the row height measured in a previous layout pass, if no fixed row
+     * height was set with {@link #setSuggestionRowHeight(int)}.
+     * <p/>
+     * The first swap still waits for its rows to be laid out, later swaps
+     * start the expand/collapse animation right away. Same as with a fixed
+     * height, this only works if all rows have the same height.
+     *
+     * @param predict true to reuse the measured row height
+     */
+    public void setPredictSuggestionsHeight(boolean predict) {
+        this.mPredictSuggestionsHeight = predict;
+        if (!predict) {
+            mMeasuredSuggestionRowHeight = 0;
+        }
+    }
+
     /**
      * Sets the text color of the search text.
      *
@@ -845,6 +1131,7 @@ public class FloatingSearchView extends FrameLayout {
     private void setSuggestionItemTextSize(int sizePx) {
         //todo implement dynamic suggestionTextSize setter and expose method
         this.mSuggestionsTextSizePx = sizePx;
+        mMeasuredSuggestionRowHeight = 0;
     }
 
     /**
@@ -1074,6 +1361,43 @@ public class FloatingSearchView extends FrameLayout {
         }
     }
 
+    /**
+     * Sets whether swapping the suggestions should only update the
+     * suggestion items that were inserted, removed, moved or changed,
+     * instead of rebinding the whole list.
+     * <p/>
+     * Suggestions that implement
+     * {@link com.walixiwa.floatingsearchview.suggestions.model.IdentifiableSearchSuggestion}
+     * are matched by their id, others by their body.
+     *
+     * @param incremental true to enable incremental suggestion updates
+     */
+    public void setIncrementalSuggestionUpdates(boolean incremental) {
+        this.mIncrementalSuggestionUpdates = incremental;
+        if (mSuggestionsAdapter != null) {
+            mSuggestionsAdapter.setIncrementalUpdates(incremental);
+        }
+    }
+
+    /**
+     * Sets an executor on which the difference between the current and new
+     * suggestions is computed when swapping suggestions. This implies
+     * incremental suggestion updates.
+     * <p/>
+     * Each swap is stamped with a generation, and results of swaps that
+     * were superseded by a later swap are dropped, so only the latest
+     * suggestions are bound and animate the suggestions list's height.
+     *
+     * @param executor the executor to compute the difference on, or null
+     *                 to compute it on the main thread
+     */
+    public void setSuggestionsDiffExecutor(Executor executor) {
+        if (mSuggestionsDiffer != null) {
+            mSuggestionsDiffer.cancel();
+        }
+        mSuggestionsDiffer = executor != null ? new AsyncSuggestionsDiffer(executor) : null;
+    }
+
     /**
      * Wrapper implementation for EditText.setFocusable(boolean focusable)
      *
@@ -1146,6 +1470,66 @@ public class FloatingSearchView extends FrameLayout {
         return updatedToNotFocused;
     }
 
+    /**
+     * Sets whether the suggestions list, its adapter and views are only
+     * created when the search gains focus or suggestions are swapped in
+     * for the first time, instead of when this view is attached to a
+     * window. This takes their creation off the host's startup path, for
+     * screens where search is often not used.
+     * <p/>
+     * Has no effect once the suggestions list was created, so a view
+     * built in code has to be made lazy before it is attached.
+     *
+     * @param lazy true to create the suggestions list lazily
+     */
+    public void setLazySuggestions(boolean lazy) {
+        this.mLazySuggestions = lazy;
+        if (!lazy && !isInEditMode() && ViewCompat.isAttachedToWindow(this)) {
+            ensureSuggestionSection();
+        }
+    }
+
+    //inflates and sets up the suggestions list if it wasn't yet
+    private void ensureSuggestionSection() {
+        if (mSuggestionsAdapter != null) {
+            return;
+        }
+
+        TraceCompat.beginSection("FloatingSearchView.inflateSuggestions");
+        try {
+            if (mSuggestionListStub != null) {
+                inflateSuggestionList();
+            }
+            setupSuggestionSection();
+        } finally {
+            TraceCompat.endSection();
+        }
+
+        if (mIsSuggestionsSecHeightSet) {
+            //the section was already laid out, so the new list has to
+            //be collapsed once it has its height, before it is drawn
+            mSuggestionListContainer.getViewTreeObserver().addOnGlobalLayoutListener(
+                    new ViewTreeObserver.OnGlobalLayoutListener() {
+                        @Override
+                        public void onGlobalLayout() {
+                            if (mSuggestionListContainer.getHeight() > 0) {
+                                Util.removeGlobalLayoutObserver(mSuggestionListContainer, this);
+                                if (mSuggestionsAdapter.getItemCount() == 0) {
+                                    moveSuggestListToInitialPos();
+                                }
+                            }
+                        }
+                    });
+        }
+    }
+
+    private void inflateSuggestionList() {
+        mSuggestionListContainer = mSuggestionListStub.inflate();
+        mSuggestionListStub = null;
+        mSuggestionsList = (RecyclerView) mSuggestionListContainer.findViewById(R.id.suggestions_list);
+        mSuggestionsList.setBackgroundColor(mBackgroundColor);
+    }
+
     private void setupSuggestionSection() {
 
         LinearLayoutManager layoutManager = new LinearLayoutManager(getContext(),
@@ -1178,6 +1562,9 @@ public class FloatingSearchView extends FrameLayout {
                     @Override
                     public void onItemSelected(SearchSuggestion item) {
 
+                        if (mSearchHistory != null) {
+                            mSearchHistory.add(item.getBody());
+                        }
                         if (mSearchListener != null) {
                             mSearchListener.onSuggestionClicked(item);
                         }
@@ -1196,20 +1583,103 @@ public class FloatingSearchView extends FrameLayout {
                     }
                 });
         refreshShowMoveUpSuggestion();
+        mSuggestionsAdapter.setIncrementalUpdates(this.mIncrementalSuggestionUpdates);
         mSuggestionsAdapter.setTextColor(this.mSuggestionTextColor);
         mSuggestionsAdapter.setRightIconColor(this.mSuggestionRightIconColor);
+        mSuggestionsAdapter.setOnBindSuggestionCallback(mOnBindSuggestionCallback);
+        mSuggestionsAdapter.setOnBindSuggestionPayloadCallback(mOnBindSuggestionPayloadCallback);
+        if (mHighlightQueryInSuggestions) {
+            mSuggestionsAdapter.setHighlightQuery(mSearchInput.getText());
+        }
 
+        if (mSuggestionsViewPool != null) {
+            mSuggestionsList.setRecycledViewPool(mSuggestionsViewPool);
+        }
         mSuggestionsList.setAdapter(mSuggestionsAdapter);
+    }
 
-        int cardViewBottomPadding = Util.dpToPx(CARD_VIEW_CORNERS_AND_TOP_BOTTOM_SHADOW_HEIGHT);
-        //move up the suggestions section enough to cover the search bar
-        //card's bottom left and right corners
-        mSuggestionsSection.setTranslationY(-cardViewBottomPadding);
+    /**
+     * Sets the pool that the suggestions list recycles its rows into and takes
+     * them from. Search views that are shown in the same Activity can share a
+     * pool, so that rows inflated by one of them, for example by
+     * {@link #prewarmSuggestions(int)}, are reused by the others.
+     *
+     * @param pool the pool to use, or null to use a pool of
+     *             this search view's own
+     */
+    public void setSuggestionsRecycledViewPool(RecyclerView.RecycledViewPool pool) {
+        this.mSuggestionsViewPool = pool;
+        if (mSuggestionsList != null) {
+            mSuggestionsList.setRecycledViewPool(pool);
+        }
+    }
+
+    /**
+     * Inflates suggestion rows ahead of time, so that the suggestions list
+     * doesn't have to inflate them on the main thread when it's shown for the
+     * first time. This also creates the suggestions list and adapter if they
+     * are {@link #setLazySuggestions(boolean) created lazily}.
+     * <p/>
+     * The rows are inflated one at a time whenever the main thread is idle,
+     * and put into the suggestions list's recycled view pool until it holds
+     * the given number of rows. The pool's maximum number of rows is raised
+     * to the given number if needed, but never lowered, since the pool may be
+     * shared with other search views. Must be called from the main thread.
+     *
+     * @param count the number of rows to have ready, usually the
+     *              number of rows that fit on the screen
+     */
+    public void prewarmSuggestions(final int count) {
+        if (isInEditMode()) {
+            return;
+        }
+        ensureSuggestionSection();
+        cancelPrewarm();
+
+        final RecyclerView.RecycledViewPool pool = mSuggestionsList.getRecycledViewPool();
+        final int viewType = mSuggestionsAdapter.getItemViewType(0);
+        raiseMaxRecycledViews(pool, viewType, count);
+        mPrewarmIdleHandler = new MessageQueue.IdleHandler() {
+            @Override
+            public boolean queueIdle() {
+                if (pool.getRecycledViewCount(viewType) >= count) {
+                    mPrewarmIdleHandler = null;
+                    return false;
+                }
+                pool.putRecycledView(mSuggestionsAdapter.createViewHolder(mSuggestionsList, viewType));
+                return true;
+            }
+        };
+        Looper.myQueue().addIdleHandler(mPrewarmIdleHandler);
+    }
+
+    //only ever raises the pool's size, so that a search view sharing the pool
+    //doesn't drop the rows another one prewarmed for a longer list
+    private static void raiseMaxRecycledViews(RecyclerView.RecycledViewPool pool, int viewType, int count) {
+        Integer size = sPrewarmedPoolSizes.get(pool);
+        int currentSize = size != null ? size : DEFAULT_RECYCLED_VIEW_POOL_SIZE;
+        if (count > currentSize) {
+            pool.setMaxRecycledViews(viewType, count);
+            sPrewarmedPoolSizes.put(pool, count);
+        }
+    }
+
+    private void cancelPrewarm() {
+        if (mPrewarmIdleHandler != null) {
+            Looper.myQueue().removeIdleHandler(mPrewarmIdleHandler);
+            mPrewarmIdleHandler = null;
+        }
     }
 
     private void moveSuggestListToInitialPos() {
+        if (mSuggestionListContainer == null) {
+            return;
+        }
         //move the suggestions list to the collapsed position
         //which is translationY of -listContainerHeight
+        if (mSuggestionsSpring != null) {
+            mSuggestionsSpring.cancel();
+        }
         mSuggestionListContainer.setTranslationY(-mSuggestionListContainer.getHeight());
     }
 
@@ -1217,46 +1687,152 @@ public class FloatingSearchView extends FrameLayout {
      * Clears the current suggestions and replaces it
      * with the provided list of new suggestions.
      *
+     * <p/>
+     * The suggestions are copied, so the list can be modified or reused
+     * afterwards. A {@link PagedSuggestionList} is not copied, as that
+     * would load all of its rows, and neither is an immutable
+     * {@link CompactSuggestionList}. Both are shown as is, as with
+     * {@link #swapSuggestionsSnapshot(List)}.
+     *
      * @param newSearchSuggestions a list containing the new suggestions
      */
     public void swapSuggestions(final List<? extends SearchSuggestion> newSearchSuggestions) {
-        Collections.reverse(newSearchSuggestions);
-        swapSuggestions(newSearchSuggestions, true);
+        if (isLargeSuggestionList(newSearchSuggestions)) {
+            swapSuggestionsSnapshot(newSearchSuggestions);
+            return;
+        }
+        List<SearchSuggestion> reversedSuggestions = new ArrayList<SearchSuggestion>(newSearchSuggestions);
+        Collections.reverse(reversedSuggestions);
+        swapSuggestions(reversedSuggestions, true);
+    }
+
+    /**
+     * Clears the current suggestions and replaces it
+     * with the provided list of new suggestions, without copying it.
+     *
+     * <p/>
+     * The list is shown as is, without being copied or modified, so
+     * it can be shared with other readers. It must not be modified
+     * after it was passed to this method.
+     *
+     * @param newSearchSuggestions a list containing the new suggestions
+     */
+    public void swapSuggestionsSnapshot(final List<? extends SearchSuggestion> newSearchSuggestions) {
+        //the list is laid out from the bottom up
+        swapSuggestions(ReversedList.of(newSearchSuggestions), true);
     }
 
-    private void swapSuggestions(final List<? extends SearchSuggestion> newSearchSuggestions,
-                                 final boolean withAnim) {
+    //paged and compact lists would create a row per suggestion when copied,
+    //diffed or filtered, so they are always shown as is
+    private static boolean isLargeSuggestionList(List<?> suggestions) {
+        return PagedSuggestionList.unwrap(suggestions) != null
+                || CompactSuggestionList.unwrap(suggestions) != null;
+    }
 
-        mSuggestionsList.getViewTreeObserver().addOnGlobalLayoutListener(new ViewTreeObserver.OnGlobalLayoutListener() {
-            @Override
-            public void onGlobalLayout() {
-                Util.removeGlobalLayoutObserver(mSuggestionsList, this);
-                updateSuggestionsSectionHeight(newSearchSuggestions, withAnim);
+    private void swapSuggestions(List<? extends SearchSuggestion> newSearchSuggestions,
+                                 boolean withAnim) {
+        if (!mCoalesceSuggestionSwaps) {
+            applySwapSuggestions(newSearchSuggestions, withAnim);
+            return;
+        }
+
+        //only the last list swapped in before the next frame is applied,
+        //the ones it replaces are never bound or animated
+        if (mPendingSuggestions != null) {
+            mCoalescedSuggestionSwapCount++;
+        } else {
+            ViewCompat.postOnAnimation(this, mApplyPendingSuggestionsRunnable);
+        }
+        mPendingSuggestions = newSearchSuggestions;
+        mPendingSuggestionsWithAnim = withAnim;
+    }
+
+    private void applySwapSuggestions(final List<? extends SearchSuggestion> newSearchSuggestions,
+                                      final boolean withAnim) {
+
+        if (mSuggestionsAdapter == null) {
+            if (newSearchSuggestions.isEmpty()) {
+                //nothing was ever shown, so there is nothing to clear
+                return;
             }
-        });
-        mSuggestionsAdapter.swapData(newSearchSuggestions);
+            ensureSuggestionSection();
+        }
+
+        List<? extends SearchSuggestion> currentSuggestions = mSuggestionsAdapter.getDataSet();
+        if (mSuggestionsDiffer != null && !currentSuggestions.isEmpty() && !newSearchSuggestions.isEmpty()
+                && !isLargeSuggestionList(currentSuggestions)
+                && !isLargeSuggestionList(newSearchSuggestions)) {
+            mSuggestionsDiffer.submit(currentSuggestions, newSearchSuggestions,
+                    new AsyncSuggestionsDiffer.Callback() {
+                        @Override
+                        public void onDiffReady(List<? extends SearchSuggestion> newSuggestions,
+                                                DiffUtil.DiffResult diffResult) {
+                            applySuggestions(newSuggestions, diffResult, withAnim);
+                        }
+                    });
+        } else {
+            //nothing worth diffing in the background, so apply right away and
+            //drop any pending result that is now stale
+            if (mSuggestionsDiffer != null) {
+                mSuggestionsDiffer.cancel();
+            }
+            applySuggestions(newSearchSuggestions, null, withAnim);
+        }
+    }
+
+    private void applySuggestions(final List<? extends SearchSuggestion> newSearchSuggestions,
+                                  DiffUtil.DiffResult diffResult, final boolean withAnim) {
+
+        //if the rows' height is known and the container was laid out, the new
+        //height can be set right away, otherwise wait for the new rows' layout
+        final int rowHeight = getKnownSuggestionRowHeight();
+        final boolean predictHeight = rowHeight > 0 && mSuggestionListContainer.getHeight() > 0;
+        if (!predictHeight) {
+            mSuggestionsList.getViewTreeObserver().addOnGlobalLayoutListener(new ViewTreeObserver.OnGlobalLayoutListener() {
+                @Override
+                public void onGlobalLayout() {
+                    Util.removeGlobalLayoutObserver(mSuggestionsList, this);
+                    updateSuggestionsSectionHeight(getVisibleItemsHeight(newSearchSuggestions), withAnim);
+                }
+            });
+        }
+        if (diffResult != null) {
+            mSuggestionsAdapter.swapData(newSearchSuggestions, diffResult);
+        } else {
+            mSuggestionsAdapter.swapDataSnapshot(newSearchSuggestions);
+        }
 
         mDivider.setVisibility(!newSearchSuggestions.isEmpty() ? View.VISIBLE : View.GONE);
+
+        if (predictHeight) {
+            updateSuggestionsSectionHeight(getPredictedItemsHeight(newSearchSuggestions, rowHeight), withAnim);
+        }
     }
 
-    private void updateSuggestionsSectionHeight(List<? extends SearchSuggestion>
-                                                        newSearchSuggestions, boolean withAnim) {
+    private void updateSuggestionsSectionHeight(int visibleHeight, boolean withAnim) {
 
         final int cardTopBottomShadowPadding = Util.dpToPx(CARD_VIEW_CORNERS_AND_TOP_BOTTOM_SHADOW_HEIGHT);
         final int cardRadiusSize = Util.dpToPx(CARD_VIEW_TOP_BOTTOM_SHADOW_HEIGHT);
 
-        int visibleHeight = getVisibleItemsHeight(newSearchSuggestions);
         int diff = mSuggestionListContainer.getHeight() - visibleHeight;
         int addedTranslationYForShadowOffsets = diff <= cardTopBottomShadowPadding ?
                 -(cardTopBottomShadowPadding - diff) :
                 Math.max(cardRadiusSize - (diff - cardTopBottomShadowPadding), cardRadiusSize);
         final float newTranslationY = -mSuggestionListContainer.getHeight() +
-                getVisibleItemsHeight(newSearchSuggestions) + addedTranslationYForShadowOffsets;
+                visibleHeight + addedTranslationYForShadowOffsets;
 
         final boolean animateAtEnd = newTranslationY >= mSuggestionListContainer.getTranslationY();
 
+        if (withAnim && mSuggestionsSpringAnimEnabled) {
+            animateSuggestionsSpring(newTranslationY, animateAtEnd);
+            return;
+        }
+
         final float fullyInvisibleTranslationY = -mSuggestionListContainer.getHeight() + cardRadiusSize;
         ViewCompat.animate(mSuggestionListContainer).cancel();
+        if (mSuggestionsSpring != null) {
+            mSuggestionsSpring.cancel();
+        }
         if (withAnim) {
             ViewCompat.animate(mSuggestionListContainer).
                     setInterpolator(SUGGEST_ITEM_ADD_ANIM_INTERPOLATOR).
@@ -1304,13 +1880,79 @@ public class FloatingSearchView extends FrameLayout {
         }
     }
 
+    //moves the suggestions list towards the given translation, redirecting the spring
+    //from its current position and velocity if it is already running
+    private void animateSuggestionsSpring(float newTranslationY, boolean animateAtEnd) {
+        if (mSuggestionsSpring == null) {
+            mSuggestionsSpring = new SpringAnimation(mSuggestionListContainer, DynamicAnimation.TRANSLATION_Y)
+                    .setSpring(new SpringForce()
+                            .setStiffness(SpringForce.STIFFNESS_LOW)
+                            .setDampingRatio(SpringForce.DAMPING_RATIO_NO_BOUNCY));
+            mSuggestionsSpring.addUpdateListener(new DynamicAnimation.OnAnimationUpdateListener() {
+                @Override
+                public void onAnimationUpdate(DynamicAnimation animation, float value, float velocity) {
+                    notifySuggestionsListHeightChanged(value);
+                }
+            });
+            mSuggestionsSpring.addEndListener(new DynamicAnimation.OnAnimationEndListener() {
+                @Override
+                public void onAnimationEnd(DynamicAnimation animation, boolean canceled, float value,
+                                           float velocity) {
+                    if (!canceled && mScrollToLastSuggestionOnSpringEnd) {
+                        int lastPos = mSuggestionsList.getAdapter().getItemCount() - 1;
+                        if (lastPos > -1) {
+                            mSuggestionsList.smoothScrollToPosition(lastPos);
+                        }
+                    }
+                }
+            });
+        }
+
+        //a switch from the duration based animation continues from where it stopped
+        ViewCompat.animate(mSuggestionListContainer).cancel();
+        mScrollToLastSuggestionOnSpringEnd = animateAtEnd;
+        if (!animateAtEnd) {
+            mSuggestionsList.smoothScrollToPosition(0);
+        }
+        mSuggestionsSpring.animateToFinalPosition(newTranslationY);
+    }
+
+    private void notifySuggestionsListHeightChanged(float translationY) {
+        if (mOnSuggestionsListHeightChanged != null) {
+            float fullyInvisibleTranslationY = -mSuggestionListContainer.getHeight()
+                    + Util.dpToPx(CARD_VIEW_TOP_BOTTOM_SHADOW_HEIGHT);
+            mOnSuggestionsListHeightChanged.onSuggestionsListHeightChanged(
+                    Math.abs(translationY - fullyInvisibleTranslationY));
+        }
+    }
+
+    //returns the fixed row height, the row height measured in an earlier layout
+    //pass if predicting is enabled, or 0 if the new rows have to be measured
+    private int getKnownSuggestionRowHeight() {
+        if (mSuggestionRowHeight > 0) {
+            return mSuggestionRowHeight;
+        }
+        return mPredictSuggestionsHeight ? mMeasuredSuggestionRowHeight : 0;
+    }
+
+    //same as getVisibleItemsHeight(), but for rows that all have the given height
+    private int getPredictedItemsHeight(List<? extends SearchSuggestion> suggestions, int rowHeight) {
+        int containerHeight = mSuggestionListContainer.getHeight();
+        //compare in long, a large list times the row height could overflow
+        return (int) Math.min((long) suggestions.size() * rowHeight, containerHeight);
+    }
+
     //returns the cumulative height that the current suggestion items take up, or the full height
     //of the suggestions list, if the cumulative items' height is >= the lists height
     private int getVisibleItemsHeight(List<? extends SearchSuggestion> suggestions) {
 
         int visibleItemsHeight = 0;
         for (int i = 0; i < suggestions.size() && i < mSuggestionsList.getChildCount(); i++) {
-            visibleItemsHeight += mSuggestionsList.getChildAt(i).getHeight();
+            int childHeight = mSuggestionsList.getChildAt(i).getHeight();
+            if (mPredictSuggestionsHeight && childHeight > 0) {
+                mMeasuredSuggestionRowHeight = childHeight;
+            }
+            visibleItemsHeight += childHeight;
 
             if (visibleItemsHeight > mSuggestionListContainer.getHeight()) {
                 visibleItemsHeight = mSuggestionListContainer.getHeight();
@@ -1323,6 +1965,9 @@ public class FloatingSearchView extends FrameLayout {
     /**
      * Set a callback that will be called after each suggestion view in the suggestions recycler
      * list is bound. This allows for customized binding for specific items in the list.
+     * <p/>
+     * The callback is not called for partial binds, like the ones caused by a query highlight
+     * or color change. See {@link #setOnBindSuggestionPayloadCallback} for a callback that is.
      *
      * @param callback A callback to be called after a suggestion is bound by the suggestions list's
      *                 adapter.
@@ -1334,12 +1979,45 @@ public class FloatingSearchView extends FrameLayout {
         }
     }
 
+    /**
+     * Set a callback that will be called after each suggestion view in the suggestions recycler
+     * list is bound, fully or partially. Partial binds, like the ones caused by a query highlight
+     * or color change, pass their payloads so that the callback can skip unaffected work.
+     *
+     * @param callback A callback to be called after a suggestion is bound by the suggestions list's
+     *                 adapter.
+     */
+    public void setOnBindSuggestionPayloadCallback(SearchSuggestionsAdapter.OnBindSuggestionPayloadCallback callback) {
+        this.mOnBindSuggestionPayloadCallback = callback;
+        if (mSuggestionsAdapter != null) {
+            mSuggestionsAdapter.setOnBindSuggestionPayloadCallback(mOnBindSuggestionPayloadCallback);
+        }
+    }
+
+    /**
+     * Sets whether the current query should be highlighted in the text of
+     * the suggestions. When the query changes while the suggestions stay the
+     * same, only the suggestions' text is rebound.
+     * <p/>
+     * Suggestions that implement
+     * {@link com.walixiwa.floatingsearchview.suggestions.model.HighlightedSearchSuggestion}
+     * are always highlighted by their own ranges.
+     *
+     * @param highlight true to highlight the query
+     */
+    public void setHighlightQueryInSuggestions(boolean highlight) {
+        this.mHighlightQueryInSuggestions = highlight;
+        if (mSuggestionsAdapter != null) {
+            mSuggestionsAdapter.setHighlightQuery(highlight ? mSearchInput.getText() : null);
+        }
+    }
+
     /**
      * Collapses the suggestions list and
      * then clears its suggestion items.
      */
     public void clearSuggestions() {
-        swapSuggestions(new ArrayList<SearchSuggestion>());
+        swapSuggestionsSnapshot(Collections.<SearchSuggestion>emptyList());
     }
 
     public void clearSearchFocus() {
@@ -1355,12 +2033,17 @@ public class FloatingSearchView extends FrameLayout {
 
         if (focused) {
             mSearchInput.requestFocus();
+            ensureSuggestionSection();
             moveSuggestListToInitialPos();
             if (mDimBackground) {
                 fadeInBackground();
             }
             mMenuView.hideIfRoomItems(true);
             transitionInLeftSection(true);
+            if (mSearchHistory != null) {
+                //no-op after the first focus, and never blocks
+                mSearchHistory.load();
+            }
             Util.showSoftKeyboard(getContext(), mSearchInput);
             if (mMenuOpen) {
                 closeMenu(false);
@@ -1374,6 +2057,11 @@ public class FloatingSearchView extends FrameLayout {
             }
         } else {
             mMainLayout.requestFocus();
+            if (mQueryPipeline != null) {
+                mQueryPipeline.cancel();
+            }
+            mLastProvidedQuery = null;
+            mLastProvidedSuggestions = null;
             clearSuggestions();
             if (mDimBackground) {
                 fadeOutBackground();
@@ -1533,6 +2221,334 @@ public class FloatingSearchView extends FrameLayout {
         this.mQueryListener = listener;
     }
 
+    /**
+     * Sets a listener that will listen for query changes as they
+     * are being typed, without a string being created for each
+     * change.
+     *
+     * @param listener listener for query changes
+     */
+    public void setOnQueryTextChangeListener(OnQueryTextChangeListener listener) {
+        this.mQueryTextListener = listener;
+    }
+
+    /**
+     * Sets a pipeline that will receive query changes as they
+     * are being typed, and deliver them debounced, filtered and
+     * on a background executor.
+     * <p/>
+     * Unlike {@link #setOnQueryChangeListener(OnQueryChangeListener)}, which
+     * is called for every character, the pipeline is meant to drive
+     * requests to a suggestions backend. Pending and in-flight queries
+     * are cancelled when the search loses focus.
+     *
+     * @param pipeline the query pipeline, or null to remove the current one
+     */
+    public void setQueryPipeline(QueryPipeline pipeline) {
+        if (mQueryPipeline != null) {
+            mQueryPipeline.cancel();
+        }
+        this.mQueryPipeline = pipeline;
+        this.mSuggestionProvider = null;
+    }
+
+    //returns the previous query as a string, creating it only if it wasn't yet
+    private String getOldQuery() {
+        if (mOldQuery == null) {
+            mOldQuery = mOldQueryText.toString();
+        }
+        return mOldQuery;
+    }
+
+    private void dispatchQueryChange(String oldQuery, String query) {
+        //queries the pipeline won't deliver are never answered from the cache either
+        if (mSuggestionProvider != null && mSuggestionCache != null
+                && mQueryPipeline.isLongEnough(query)) {
+            List<? extends SearchSuggestion> cachedSuggestions = mSuggestionCache.get(query);
+            if (cachedSuggestions != null) {
+                //answered without calling out, so skip the request and its progress
+                mQueryPipeline.onQueryAnswered(query);
+                swapProvidedSuggestions(query, cachedSuggestions);
+                return;
+            }
+        }
+        if (mSuggestionProvider != null && mLocalPrefixFilter != null
+                && query.length() > oldQuery.length() && query.startsWith(oldQuery)) {
+            showLocallyFilteredSuggestions(query);
+        }
+        mQueryPipeline.onQueryChanged(query);
+    }
+
+    //when the query extends the query of the last provided suggestions, show the
+    //ones that still match until the provider delivers the real ones
+    private void showLocallyFilteredSuggestions(String query) {
+        if (mLastProvidedQuery == null || isLargeSuggestionList(mLastProvidedSuggestions)) {
+            return;
+        }
+        String normalizedQuery = SuggestionCache.normalizeQuery(query);
+        String normalizedLastQuery = SuggestionCache.normalizeQuery(mLastProvidedQuery);
+        if (normalizedQuery.length() <= normalizedLastQuery.length()
+                || !normalizedQuery.startsWith(normalizedLastQuery)) {
+            return;
+        }
+
+        List<SearchSuggestion> filteredSuggestions = new ArrayList<>();
+        for (int i = mLastProvidedSuggestions.size() - 1; i >= 0; i--) {
+            SearchSuggestion suggestion = mLastProvidedSuggestions.get(i);
+            if (mLocalPrefixFilter.matches(suggestion, normalizedQuery)) {
+                filteredSuggestions.add(suggestion);
+            }
+        }
+        //already in reversed order
+        swapSuggestions(filteredSuggestions, true);
+    }
+
+    /**
+     * Returns the pipeline that currently receives query changes, which
+     * can be used to tune the debounce and minimum query length.
+     *
+     * @return the current query pipeline, or null if none is set
+     */
+    public QueryPipeline getQueryPipeline() {
+        return mQueryPipeline;
+    }
+
+    /**
+     * Sets a provider that this view will query for suggestions
+     * as the user types.
+     * <p/>
+     * Queries are delivered to the provider on the given executor
+     * through a {@link QueryPipeline}, which replaces any pipeline
+     * previously set with {@link #setQueryPipeline(QueryPipeline)}.
+     * The progress indicator is shown while a request is in flight,
+     * and only the results of the newest request are swapped in.
+     *
+     * @param provider the suggestion provider, or null to remove the current one
+     * @param executor the executor on which the provider is called
+     */
+    public void setSuggestionProvider(final SuggestionProvider provider, Executor executor) {
+        if (provider == null) {
+            setQueryPipeline(null);
+            return;
+        }
+
+        QueryPipeline pipeline = new QueryPipeline(executor, new QueryPipeline.Listener() {
+            @Override
+            public void onQuery(String query, CancellationSignal cancellationSignal) {
+                provider.requestSuggestions(query, cancellationSignal,
+                        new SuggestionRequestCallback(query, cancellationSignal));
+            }
+        });
+        pipeline.setOnQueryDispatchedListener(new QueryPipeline.OnQueryDispatchedListener() {
+            @Override
+            public void onQueryDispatched(String query, CancellationSignal cancellationSignal) {
+                startSuggestionRequest(query, cancellationSignal);
+            }
+        });
+        setQueryPipeline(pipeline);
+        mSuggestionProvider = provider;
+    }
+
+    /**
+     * Sets a cache that is consulted before the suggestion provider is called.
+     * <p/>
+     * On every query change, suggestions cached for the query are shown right
+     * away without a request or progress indicator. Suggestions delivered by the
+     * provider are added to the cache.
+     *
+     * @param cache the suggestion cache, or null to not use one
+     * @see #setSuggestionProvider(SuggestionProvider, Executor)
+     */
+    public void setSuggestionCache(SuggestionCache cache) {
+        this.mSuggestionCache = cache;
+    }
+
+    /**
+     * Sets a search history that records every completed search, either
+     * through the search key or by clicking a suggestion.
+     * <p/>
+     * To suggest queries from the history as the user types, also set it
+     * as the suggestion provider with
+     * {@link #setSuggestionProvider(SuggestionProvider, Executor)}.
+     * History suggestions are shown with the history icon.
+     * <p/>
+     * A persisted history starts loading in the background the first
+     * time the search gains focus.
+     *
+     * @param searchHistory the history to record searches in, or null to not record them
+     */
+    public void setSearchHistory(SearchHistory searchHistory) {
+        this.mSearchHistory = searchHistory;
+    }
+
+    /**
+     * Sets a filter that narrows down the last provided suggestions when the
+     * query is extended (for example from "jav" to "java"), so that matching
+     * suggestions show up right away while the provider fetches the suggestions
+     * for the new query in the background.
+     *
+     * @param filter the filter to apply locally, for example {@link SuggestionFilter#CONTAINS},
+     *               or null to only show the provider's suggestions
+     * @see #setSuggestionProvider(SuggestionProvider, Executor)
+     */
+    public void setLocalPrefixFilter(SuggestionFilter filter) {
+        this.mLocalPrefixFilter = filter;
+    }
+
+    private void startSuggestionRequest(String query, final CancellationSignal cancellationSignal) {
+        mSuggestionRequestSignal = cancellationSignal;
+        mSuggestionRequestQuery = query;
+        cancellationSignal.setOnCancelListener(new CancellationSignal.OnCancelListener() {
+            @Override
+            public void onCancel() {
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        finishSuggestionRequest(cancellationSignal);
+                    }
+                });
+            }
+        });
+        if (!mIsSuggestionRequestProgressShown) {
+            mIsSuggestionRequestProgressShown = true;
+            showProgress();
+        }
+    }
+
+    //returns true if the given request is the newest one and wasn't cancelled,
+    //meaning that its results should be shown
+    private boolean finishSuggestionRequest(CancellationSignal cancellationSignal) {
+        if (cancellationSignal != mSuggestionRequestSignal) {
+            return false;
+        }
+        mSuggestionRequestSignal = null;
+        mSuggestionRequestQuery = null;
+        if (mIsSuggestionRequestProgressShown) {
+            mIsSuggestionRequestProgressShown = false;
+            hideProgress();
+        }
+        return !cancellationSignal.isCanceled();
+    }
+
+    private void swapProvidedSuggestions(String query, List<? extends SearchSuggestion> suggestions) {
+        mLastProvidedQuery = query;
+        mLastProvidedSuggestions = suggestions;
+
+        swapSuggestions(ReversedList.of(suggestions), true);
+    }
+
+    //called with the results of a request that was in flight when the
+    //previous instance of this view was retained, or null if it failed
+    void onRetainedRequestFinished(CancellationSignal cancellationSignal, String query,
+                                   List<? extends SearchSuggestion> suggestions) {
+        if (finishSuggestionRequest(cancellationSignal) && suggestions != null) {
+            swapProvidedSuggestions(query, suggestions);
+        }
+    }
+
+    //returns the retained state of the host Activity's search views,
+    //or null if it isn't enabled or can't be used
+    private RetainedSearchState getRetainedState() {
+        if (!mRetainStateOnConfigChange || getId() == View.NO_ID
+                || !(mHostActivity instanceof ViewModelStoreOwner)) {
+            return null;
+        }
+        if (mRetainedState == null) {
+            mRetainedState = RetainedSearchState.of((ViewModelStoreOwner) mHostActivity);
+        }
+        return mRetainedState;
+    }
+
+    private void retainState(RetainedSearchState retainedState) {
+        RetainedSearchState.Entry entry = retainedState.put(getId());
+        if (mPendingSuggestions != null) {
+            entry.suggestions = mPendingSuggestions;
+        } else if (mSuggestionsAdapter != null) {
+            entry.suggestions = mSuggestionsAdapter.getDataSet();
+        } else {
+            entry.suggestions = Collections.<SearchSuggestion>emptyList();
+        }
+        entry.query = getQuery();
+        entry.lastProvidedQuery = mLastProvidedQuery;
+        entry.lastProvidedSuggestions = mLastProvidedSuggestions;
+
+        //keep the in-flight request running, its results are
+        //passed on to the recreated view
+        if (mSuggestionRequestSignal != null && mQueryPipeline != null) {
+            mQueryPipeline.releaseInFlight();
+            entry.requestQuery = mSuggestionRequestQuery;
+            entry.requestSignal = mSuggestionRequestSignal;
+            mSuggestionRequestSignal = null;
+            mSuggestionRequestQuery = null;
+        }
+    }
+
+    //takes over the state retained by the previous instance of this view, and
+    //returns the suggestions to show, or null if nothing was retained
+    private List<? extends SearchSuggestion> restoreRetainedState() {
+        RetainedSearchState retainedState = getRetainedState();
+        RetainedSearchState.Entry entry = retainedState != null ? retainedState.get(getId()) : null;
+        if (entry == null) {
+            return null;
+        }
+
+        mLastProvidedQuery = entry.lastProvidedQuery;
+        mLastProvidedSuggestions = entry.lastProvidedSuggestions;
+        if (entry.requestSignal != null && !entry.requestSignal.isCanceled()) {
+            if (mQueryPipeline != null) {
+                mQueryPipeline.resumeInFlight(entry.requestQuery, entry.requestSignal);
+            }
+            startSuggestionRequest(entry.requestQuery, entry.requestSignal);
+            entry.view = this;
+        } else {
+            retainedState.remove(getId());
+        }
+        return entry.suggestions;
+    }
+
+    private class SuggestionRequestCallback implements SuggestionProvider.Callback {
+
+        private final String mQuery;
+        private final CancellationSignal mCancellationSignal;
+
+        SuggestionRequestCallback(String query, CancellationSignal cancellationSignal) {
+            this.mQuery = query;
+            this.mCancellationSignal = cancellationSignal;
+        }
+
+        @Override
+        public void onSuggestionsReady(final List<? extends SearchSuggestion> suggestions) {
+            mMainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    //superseded results are still valid for their own query, the
+                    //cache itself skips lists that are too large to copy
+                    if (mSuggestionCache != null) {
+                        mSuggestionCache.put(mQuery, suggestions);
+                    }
+                    if (finishSuggestionRequest(mCancellationSignal)) {
+                        swapProvidedSuggestions(mQuery, suggestions);
+                    } else if (mRetainedState != null) {
+                        //the request may have been handed to the recreated view
+                        mRetainedState.onRequestFinished(getId(), mCancellationSignal, mQuery, suggestions);
+                    }
+                }
+            });
+        }
+
+        @Override
+        public void onSuggestionsFailed(Throwable error) {
+            mMainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    if (!finishSuggestionRequest(mCancellationSignal) && mRetainedState != null) {
+                        mRetainedState.onRequestFinished(getId(), mCancellationSignal, mQuery, null);
+                    }
+                }
+            });
+        }
+    }
+
     /**
      * Sets the listener that will be called when
      * an action that completes the current search
@@ -1663,11 +2679,264 @@ public class FloatingSearchView extends FrameLayout {
         return ViewCompat.getLayoutDirection(this) == ViewCompat.LAYOUT_DIRECTION_RTL;
     }
 
+    /**
+     * Returns a snapshot of the colors and suggestion options that
+     * {@link #applyStyle(Style)} applies.
+     */
+    public Style getStyle() {
+        return new Style.Builder()
+                .setBackgroundColor(mBackgroundColor)
+                .setSuggestionsTextColor(mSuggestionTextColor)
+                .setQueryTextColor(mSearchInputTextColor)
+                .setHintTextColor(mSearchInputHintColor)
+                .setActionMenuOverflowColor(mOverflowIconColor)
+                .setMenuItemIconColor(mActionMenuItemColor)
+                .setLeftActionIconColor(mLeftActionIconColor)
+                .setClearBtnColor(mClearBtnColor)
+                .setSuggestionRightIconColor(mSuggestionRightIconColor)
+                .setDividerColor(mDividerColor)
+                .setShowMoveUpSuggestion(mShowMoveUpSuggestion)
+                .build();
+    }
+
+    /**
+     * Applies all the colors and suggestion options of the given style at once.
+     * <p/>
+     * Unlike calling the individual setters in a row, only the values that
+     * differ from the current ones are applied, the suggestions are rebound
+     * at most once and the action menu icons are re-tinted at most once.
+     *
+     * @param style the style to apply, see {@link #getStyle()} to
+     *              start from the current one
+     */
+    public void applyStyle(Style style) {
+        if (style.backgroundColor != mBackgroundColor) {
+            setBackgroundColor(style.backgroundColor);
+        }
+        if (style.queryTextColor != mSearchInputTextColor) {
+            setQueryTextColor(style.queryTextColor);
+        }
+        if (style.hintTextColor != mSearchInputHintColor) {
+            setHintTextColor(style.hintTextColor);
+        }
+        if (style.leftActionIconColor != mLeftActionIconColor) {
+            setLeftActionIconColor(style.leftActionIconColor);
+        }
+        if (style.clearBtnColor != mClearBtnColor) {
+            setClearBtnColor(style.clearBtnColor);
+        }
+        if (style.dividerColor != mDividerColor) {
+            setDividerColor(style.dividerColor);
+        }
+
+        this.mActionMenuItemColor = style.menuItemIconColor;
+        this.mOverflowIconColor = style.actionMenuOverflowColor;
+        if (mMenuView != null) {
+            mMenuView.setColors(mActionMenuItemColor, mOverflowIconColor);
+        }
+
+        this.mSuggestionTextColor = style.suggestionsTextColor;
+        this.mSuggestionRightIconColor = style.suggestionRightIconColor;
+        this.mShowMoveUpSuggestion = style.showMoveUpSuggestion;
+        if (mSuggestionsAdapter != null) {
+            mSuggestionsAdapter.setStyle(mSuggestionTextColor, mSuggestionRightIconColor,
+                    mShowMoveUpSuggestion);
+        }
+    }
+
+    /**
+     * An immutable set of the colors and suggestion options of a
+     * {@link FloatingSearchView}, applied in one go by {@link #applyStyle(Style)}.
+     */
+    public static final class Style {
+
+        private final int backgroundColor;
+        private final int suggestionsTextColor;
+        private final int queryTextColor;
+        private final int hintTextColor;
+        private final int actionMenuOverflowColor;
+        private final int menuItemIconColor;
+        private final int leftActionIconColor;
+        private final int clearBtnColor;
+        private final int suggestionRightIconColor;
+        private final int dividerColor;
+        private final boolean showMoveUpSuggestion;
+
+        private Style(Builder builder) {
+            this.backgroundColor = builder.backgroundColor;
+            this.suggestionsTextColor = builder.suggestionsTextColor;
+            this.queryTextColor = builder.queryTextColor;
+            this.hintTextColor = builder.hintTextColor;
+            this.actionMenuOverflowColor = builder.actionMenuOverflowColor;
+            this.menuItemIconColor = builder.menuItemIconColor;
+            this.leftActionIconColor = builder.leftActionIconColor;
+            this.clearBtnColor = builder.clearBtnColor;
+            this.suggestionRightIconColor = builder.suggestionRightIconColor;
+            this.dividerColor = builder.dividerColor;
+            this.showMoveUpSuggestion = builder.showMoveUpSuggestion;
+        }
+
+        public int getBackgroundColor() {
+            return backgroundColor;
+        }
+
+        public int getSuggestionsTextColor() {
+            return suggestionsTextColor;
+        }
+
+        public int getQueryTextColor() {
+            return queryTextColor;
+        }
+
+        public int getHintTextColor() {
+            return hintTextColor;
+        }
+
+        public int getActionMenuOverflowColor() {
+            return actionMenuOverflowColor;
+        }
+
+        public int getMenuItemIconColor() {
+            return menuItemIconColor;
+        }
+
+        public int getLeftActionIconColor() {
+            return leftActionIconColor;
+        }
+
+        public int getClearBtnColor() {
+            return clearBtnColor;
+        }
+
+        public int getSuggestionRightIconColor() {
+            return suggestionRightIconColor;
+        }
+
+        public int getDividerColor() {
+            return dividerColor;
+        }
+
+        public boolean isShowMoveUpSuggestion() {
+            return showMoveUpSuggestion;
+        }
+
+        /**
+         * Returns a builder that starts from the values of this style.
+         */
+        public Builder buildUpon() {
+            return new Builder(this);
+        }
+
+        /**
+         * Builds a {@link Style}. Obtain one with {@link FloatingSearchView#getStyle()}
+         * and {@link Style#buildUpon()}, so that the values that are not set
+         * keep their current value.
+         */
+        public static final class Builder {
+
+            private int backgroundColor;
+            private int suggestionsTextColor = -1;
+            private int queryTextColor = -1;
+            private int hintTextColor = -1;
+            private int actionMenuOverflowColor;
+            private int menuItemIconColor;
+            private int leftActionIconColor;
+            private int clearBtnColor;
+            private int suggestionRightIconColor;
+            private int dividerColor;
+            private boolean showMoveUpSuggestion;
+
+            //every value must be set, so only the view itself starts from scratch
+            Builder() {
+            }
+
+            public Builder(Style style) {
+                this.backgroundColor = style.backgroundColor;
+                this.suggestionsTextColor = style.suggestionsTextColor;
+                this.queryTextColor = style.queryTextColor;
+                this.hintTextColor = style.hintTextColor;
+                this.actionMenuOverflowColor = style.actionMenuOverflowColor;
+                this.menuItemIconColor = style.menuItemIconColor;
+                this.leftActionIconColor = style.leftActionIconColor;
+                this.clearBtnColor = style.clearBtnColor;
+                this.suggestionRightIconColor = style.suggestionRightIconColor;
+                this.dividerColor = style.dividerColor;
+                this.showMoveUpSuggestion = style.showMoveUpSuggestion;
+            }
+
+            public Builder setBackgroundColor(int color) {
+                this.backgroundColor = color;
+                return this;
+            }
+
+            public Builder setSuggestionsTextColor(int color) {
+                this.suggestionsTextColor = color;
+                return this;
+            }
+
+            public Builder setQueryTextColor(int color) {
+                this.queryTextColor = color;
+                return this;
+            }
+
+            public Builder setHintTextColor(int color) {
+                this.hintTextColor = color;
+                return this;
+            }
+
+            public Builder setActionMenuOverflowColor(int color) {
+                this.actionMenuOverflowColor = color;
+                return this;
+            }
+
+            public Builder setMenuItemIconColor(int color) {
+                this.menuItemIconColor = color;
+                return this;
+            }
+
+            public Builder setLeftActionIconColor(int color) {
+                this.leftActionIconColor = color;
+                return this;
+            }
+
+            public Builder setClearBtnColor(int color) {
+                this.clearBtnColor = color;
+                return this;
+            }
+
+            public Builder setSuggestionRightIconColor(int color) {
+                this.suggestionRightIconColor = color;
+                return this;
+            }
+
+            public Builder setDividerColor(int color) {
+                this.dividerColor = color;
+                return this;
+            }
+
+            public Builder setShowMoveUpSuggestion(boolean show) {
+                this.showMoveUpSuggestion = show;
+                return this;
+            }
+
+            public Style build() {
+                return new Style(this);
+            }
+        }
+    }
+
     @Override
     public Parcelable onSaveInstanceState() {
         Parcelable superState = super.onSaveInstanceState();
         SavedState savedState = new SavedState(superState);
-        savedState.suggestions = this.mSuggestionsAdapter.getDataSet();
+        RetainedSearchState retainedState = mHostActivity != null
+                && mHostActivity.isChangingConfigurations() ? getRetainedState() : null;
+        if (retainedState != null) {
+            retainState(retainedState);
+            savedState.isRetained = true;
+        } else if (mSaveSuggestions) {
+            savedState.suggestions = getSavedSuggestions();
+        }
         savedState.isFocused = this.mIsFocused;
         savedState.query = getQuery();
         savedState.suggestionTextSize = this.mSuggestionsTextSizePx;
@@ -1684,7 +2953,7 @@ public class FloatingSearchView extends FrameLayout {
         savedState.menuItemIconColor = this.mActionMenuItemColor;
         savedState.leftIconColor = this.mLeftActionIconColor;
         savedState.clearBtnColor = this.mClearBtnColor;
-        savedState.suggestionUpBtnColor = this.mSuggestionTextColor;
+        savedState.suggestionUpBtnColor = this.mSuggestionRightIconColor;
         savedState.dividerColor = this.mDividerColor;
         savedState.menuId = mMenuId;
         savedState.leftActionMode = mLeftActionMode;
@@ -1692,6 +2961,19 @@ public class FloatingSearchView extends FrameLayout {
         return savedState;
     }
 
+    //the suggestions are laid out from the bottom up, so the first
+    //ones are at the end of the adapter's data set
+    private List<? extends SearchSuggestion> getSavedSuggestions() {
+        List<? extends SearchSuggestion> suggestions = mSuggestionsAdapter != null ?
+                mSuggestionsAdapter.getDataSet() : Collections.<SearchSuggestion>emptyList();
+        if (PagedSuggestionList.unwrap(suggestions) != null) {
+            //its rows may not be loaded, so only the query is saved
+            return null;
+        }
+        int fromIndex = Math.max(suggestions.size() - mMaxSavedSuggestions, 0);
+        return suggestions.subList(fromIndex, suggestions.size());
+    }
+
     @Override
     public void onRestoreInstanceState(Parcelable state) {
         final SavedState savedState = (SavedState) state;
@@ -1703,22 +2985,27 @@ public class FloatingSearchView extends FrameLayout {
         this.mSuggestionSectionAnimDuration = savedState.suggestionsSectionAnimSuration;
         setSuggestionItemTextSize(savedState.suggestionTextSize);
         setDismissOnOutsideClick(savedState.dismissOnOutsideClick);
-        setShowMoveUpSuggestion(savedState.showMoveSuggestionUpBtn);
         setShowSearchKey(savedState.showSearchKey);
         setSearchHint(savedState.searchHint);
-        setBackgroundColor(savedState.backgroundColor);
-        setSuggestionsTextColor(savedState.suggestionsTextColor);
-        setQueryTextColor(savedState.queryTextColor);
-        setHintTextColor(savedState.searchHintTextColor);
-        setActionMenuOverflowColor(savedState.actionOverflowMenueColor);
-        setMenuItemIconColor(savedState.menuItemIconColor);
-        setLeftActionIconColor(savedState.leftIconColor);
-        setClearBtnColor(savedState.clearBtnColor);
-        setSuggestionRightIconColor(savedState.suggestionUpBtnColor);
-        setDividerColor(savedState.dividerColor);
+        applyStyle(new Style.Builder()
+                .setBackgroundColor(savedState.backgroundColor)
+                .setSuggestionsTextColor(savedState.suggestionsTextColor)
+                .setQueryTextColor(savedState.queryTextColor)
+                .setHintTextColor(savedState.searchHintTextColor)
+                .setActionMenuOverflowColor(savedState.actionOverflowMenueColor)
+                .setMenuItemIconColor(savedState.menuItemIconColor)
+                .setLeftActionIconColor(savedState.leftIconColor)
+                .setClearBtnColor(savedState.clearBtnColor)
+                .setSuggestionRightIconColor(savedState.suggestionUpBtnColor)
+                .setDividerColor(savedState.dividerColor)
+                .setShowMoveUpSuggestion(savedState.showMoveSuggestionUpBtn)
+                .build());
         setLeftActionMode(savedState.leftActionMode);
         setDimBackground(savedState.dimBackground);
 
+        final List<? extends SearchSuggestion> retainedSuggestions =
+                savedState.isRetained ? restoreRetainedState() : null;
+
         mSuggestionsSection.setEnabled(this.mIsFocused);
         if (this.mIsFocused) {
 
@@ -1732,7 +3019,17 @@ public class FloatingSearchView extends FrameLayout {
             mSuggestionSecHeightListener = new OnSuggestionSecHeightSetListener() {
                 @Override
                 public void onSuggestionSecHeightSet() {
-                    swapSuggestions(savedState.suggestions, false);
+                    //the saved suggestions are only read from the parcel once they are shown
+                    List<? extends SearchSuggestion> savedSuggestions =
+                            retainedSuggestions == null ? savedState.readSuggestions() : null;
+                    if (retainedSuggestions != null) {
+                        swapSuggestions(retainedSuggestions, false);
+                    } else if (savedSuggestions != null) {
+                        swapSuggestions(savedSuggestions, false);
+                    } else if (mQueryPipeline != null && !TextUtils.isEmpty(savedState.query)) {
+                        //nothing is shown yet, so the restored query is new to the pipeline
+                        dispatchQueryChange("", savedState.query);
+                    }
                     mSuggestionSecHeightListener = null;
 
                     //todo refactor move to a better location
@@ -1744,12 +3041,20 @@ public class FloatingSearchView extends FrameLayout {
             mLeftAction.setVisibility(View.VISIBLE);
 
             Util.showSoftKeyboard(getContext(), mSearchInput);
+        } else {
+            //the saved suggestions are not shown, so they are never read
+            savedState.discardSuggestions();
         }
     }
 
     static class SavedState extends BaseSavedState {
 
-        private List<? extends SearchSuggestion> suggestions = new ArrayList<>();
+        //null if only the query was saved, or if the state was retained
+        private List<? extends SearchSuggestion> suggestions;
+        //the still parceled suggestions of a restored state, see readSuggestions()
+        private Parcel suggestionsParcel;
+        private ClassLoader suggestionsClassLoader;
+        private boolean isRetained;
         private boolean isFocused;
         private String query;
         private int suggestionTextSize;
@@ -1777,9 +3082,23 @@ public class FloatingSearchView extends FrameLayout {
             super(superState);
         }
 
-        private SavedState(Parcel in) {
+        private SavedState(Parcel in, ClassLoader classLoader) {
             super(in);
-            in.readList(suggestions, getClass().getClassLoader());
+            //only the suggestions' bytes are copied here, creating the suggestions
+            //is left to readSuggestions(), which runs once they are shown
+            int suggestionsLength = in.readInt();
+            if (suggestionsLength >= 0) {
+                int suggestionsStart = in.dataPosition();
+                if (suggestionsLength > in.dataAvail()) {
+                    throw new BadParcelableException("Truncated suggestions of "
+                            + suggestionsLength + " bytes");
+                }
+                suggestionsParcel = Parcel.obtain();
+                suggestionsParcel.appendFrom(in, suggestionsStart, suggestionsLength);
+                in.setDataPosition(suggestionsStart + suggestionsLength);
+                suggestionsClassLoader = classLoader != null ? classLoader : getClass().getClassLoader();
+            }
+            isRetained = (in.readInt() != 0);
             isFocused = (in.readInt() != 0);
             query = in.readString();
             suggestionTextSize = in.readInt();
@@ -1807,7 +3126,8 @@ public class FloatingSearchView extends FrameLayout {
         @Override
         public void writeToParcel(Parcel out, int flags) {
             super.writeToParcel(out, flags);
-            out.writeList(suggestions);
+            writeSuggestions(out, flags);
+            out.writeInt(isRetained ? 1 : 0);
             out.writeInt(isFocused ? 1 : 0);
             out.writeString(query);
             out.writeInt(suggestionTextSize);
@@ -1832,10 +3152,58 @@ public class FloatingSearchView extends FrameLayout {
             out.writeLong(suggestionsSectionAnimSuration);
         }
 
+        //the suggestions are prefixed with their length in bytes, so that restoring
+        //can copy them without reading them
+        private void writeSuggestions(Parcel out, int flags) {
+            if (suggestionsParcel != null) {
+                out.writeInt(suggestionsParcel.dataSize());
+                out.appendFrom(suggestionsParcel, 0, suggestionsParcel.dataSize());
+                return;
+            }
+            if (suggestions == null) {
+                out.writeInt(-1);
+                return;
+            }
+            int lengthPosition = out.dataPosition();
+            out.writeInt(0);
+            int start = out.dataPosition();
+            SuggestionsParceler.writeSuggestions(out, suggestions, flags);
+            int end = out.dataPosition();
+            out.setDataPosition(lengthPosition);
+            out.writeInt(end - start);
+            out.setDataPosition(end);
+        }
+
+        //creates the restored suggestions the first time they are needed,
+        //returns null if only the query was saved
+        List<? extends SearchSuggestion> readSuggestions() {
+            if (suggestionsParcel != null) {
+                try {
+                    suggestionsParcel.setDataPosition(0);
+                    suggestions = SuggestionsParceler.readSuggestions(suggestionsParcel,
+                            suggestionsClassLoader);
+                } finally {
+                    discardSuggestions();
+                }
+            }
+            return suggestions;
+        }
+
+        void discardSuggestions() {
+            if (suggestionsParcel != null) {
+                suggestionsParcel.recycle();
+                suggestionsParcel = null;
+            }
+        }
+
         public static final Creator<SavedState> CREATOR
-                = new Creator<SavedState>() {
+                = new ClassLoaderCreator<SavedState>() {
             public SavedState createFromParcel(Parcel in) {
-                return new SavedState(in);
+                return new SavedState(in, null);
+            }
+
+            public SavedState createFromParcel(Parcel in, ClassLoader classLoader) {
+                return new SavedState(in, classLoader);
             }
 
             public SavedState[] newArray(int size) {
@@ -1844,12 +3212,38 @@ public class FloatingSearchView extends FrameLayout {
         };
     }
 
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+
+        if (!mLazySuggestions && !isInEditMode()) {
+            ensureSuggestionSection();
+        }
+    }
+
     @Override
     protected void onDetachedFromWindow() {
         super.onDetachedFromWindow();
 
         //remove any ongoing animations to prevent leaks
         //todo investigate if correct
-        ViewCompat.animate(mSuggestionListContainer).cancel();
+        if (mSuggestionListContainer != null) {
+            ViewCompat.animate(mSuggestionListContainer).cancel();
+        }
+        if (mSuggestionsSpring != null) {
+            mSuggestionsSpring.cancel();
+        }
+        cancelPrewarm();
+
+        if (mRetainedState != null) {
+            RetainedSearchState.Entry entry = mRetainedState.get(getId());
+            if (entry != null && entry.view == this) {
+                mRetainedState.remove(getId());
+            }
+        }
+
+        if (mQueryPipeline != null) {
+            mQueryPipeline.cancel();
+        }
     }
 }
@@ -0,0 +1,126 @@
+package com.walixiwa.floatingsearchview;
+
+/**
+ * Copyright (C) 2015 Ari C.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import android.util.SparseArray;
+
+import androidx.core.os.CancellationSignal;
+import androidx.lifecycle.ViewModel;
+import androidx.lifecycle.ViewModelProvider;
+import androidx.lifecycle.ViewModelStoreOwner;
+
+import com.walixiwa.floatingsearchview.suggestions.model.SearchSuggestion;
+import com.walixiwa.floatingsearchview.util.ReversedList;
+
+import java.util.List;
+
+/**
+ * Keeps the suggestions, query and in-flight suggestion request of the
+ * {@link FloatingSearchView}s of an Activity in memory while the Activity
+ * is recreated after a configuration change, for example a rotation.
+ * <p/>
+ * The state of each search view is kept by its view id, so search views
+ * without an id are never retained. The state is handed to
+ * the recreated view instead of being parceled, and in-flight requests
+ * are kept running and deliver their results to the recreated view.
+ *
+ * @see FloatingSearchView#setRetainStateOnConfigurationChange(boolean)
+ */
+public final class RetainedSearchState extends ViewModel {
+
+    private final SparseArray<Entry> mEntries = new SparseArray<>();
+
+    /**
+     * Only for {@link ViewModelProvider}, use {@link #of(ViewModelStoreOwner)}.
+     */
+    public RetainedSearchState() {
+    }
+
+    /**
+     * Returns the retained state of the given Activity's search views.
+     *
+     * @param activity the Activity that hosts the search views
+     * @return the retained state, created if it didn't exist yet
+     */
+    static RetainedSearchState of(ViewModelStoreOwner activity) {
+        return new ViewModelProvider(activity, new ViewModelProvider.NewInstanceFactory())
+                .get(RetainedSearchState.class);
+    }
+
+    //the state of a single search view, between it being saved and
+    //restored, and its request until it finishes
+    static final class Entry {
+        List<? extends SearchSuggestion> suggestions;
+        String query;
+        String lastProvidedQuery;
+        List<? extends SearchSuggestion> lastProvidedSuggestions;
+        String requestQuery;
+        CancellationSignal requestSignal;
+        FloatingSearchView view;
+    }
+
+    Entry put(int viewId) {
+        Entry entry = new Entry();
+        mEntries.put(viewId, entry);
+        return entry;
+    }
+
+    Entry get(int viewId) {
+        return mEntries.get(viewId);
+    }
+
+    void remove(int viewId) {
+        mEntries.remove(viewId);
+    }
+
+    /**
+     * Called when a request that was handed over to an entry finished,
+     * with the request's suggestions, or null if it failed. The results
+     * are passed on to the restored view, or kept for the view that is
+     * yet to be restored.
+     */
+    void onRequestFinished(int viewId, CancellationSignal signal, String query,
+                           List<? extends SearchSuggestion> suggestions) {
+        Entry entry = mEntries.get(viewId);
+        if (entry == null || entry.requestSignal != signal || signal.isCanceled()) {
+            return;
+        }
+        entry.requestQuery = null;
+        entry.requestSignal = null;
+
+        if (entry.view != null) {
+            entry.view.onRetainedRequestFinished(signal, query, suggestions);
+            remove(viewId);
+        } else if (suggestions != null) {
+            entry.lastProvidedQuery = query;
+            entry.lastProvidedSuggestions = suggestions;
+            //the suggestions are laid out from the bottom up
+            entry.suggestions = ReversedList.of(suggestions);
+        }
+    }
+
+    @Override
+    protected void onCleared() {
+        for (int i = 0; i < mEntries.size(); i++) {
+            CancellationSignal signal = mEntries.valueAt(i).requestSignal;
+            if (signal != null) {
+                signal.cancel();
+            }
+        }
+        mEntries.clear();
+    }
+}
@@ -0,0 +1,122 @@
+package com.walixiwa.floatingsearchview.suggestions;
+
+/**
+ * Copyright (C) 2015 Ari C.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import androidx.annotation.VisibleForTesting;
+import androidx.recyclerview.widget.DiffUtil;
+
+import com.walixiwa.floatingsearchview.suggestions.model.SearchSuggestion;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Computes the difference between suggestion lists on a background
+ * executor and delivers the result on the main thread.
+ * <p/>
+ * Every submitted diff is stamped with a generation. Only the result
+ * of the latest generation is delivered, results of earlier submissions
+ * are dropped before they reach the callback.
+ * <p/>
+ * {@link #submit(List, List, Callback)} and {@link #cancel()} must be
+ * called from the main thread. The submitted lists must not be modified
+ * afterwards.
+ */
+public class AsyncSuggestionsDiffer {
+
+    private static final String TAG = "AsyncSuggestionsDiffer";
+
+    private final Executor mExecutor;
+    private final Executor mMainThreadExecutor;
+
+    //only written from the main thread, read from the executor to skip stale work
+    private volatile int mGeneration;
+
+    public interface Callback {
+
+        /**
+         * Called on the main thread when the diff of the latest
+         * submission is ready.
+         *
+         * @param newSuggestions the new suggestions that were submitted
+         * @param diffResult     the difference between the old and new suggestions
+         */
+        void onDiffReady(List<? extends SearchSuggestion> newSuggestions, DiffUtil.DiffResult diffResult);
+    }
+
+    public AsyncSuggestionsDiffer(Executor executor) {
+        this(executor, new MainThreadExecutor());
+    }
+
+    /**
+     * @param executor           the executor that computes the diffs
+     * @param mainThreadExecutor the executor that stands in for the main
+     *                           thread, on which the results are delivered
+     */
+    @VisibleForTesting
+    AsyncSuggestionsDiffer(Executor executor, Executor mainThreadExecutor) {
+        this.mExecutor = executor;
+        this.mMainThreadExecutor = mainThreadExecutor;
+    }
+
+    /**
+     * Starts computing the difference between the given lists. This
+     * supersedes any previous submission that hasn't been delivered yet.
+     *
+     * @return the generation of this submission
+     */
+    public int submit(final List<? extends SearchSuggestion> oldSuggestions,
+                      final List<? extends SearchSuggestion> newSuggestions,
+                      final Callback callback) {
+        final int generation = ++mGeneration;
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+
+                if (generation != mGeneration) {
+                    return;
+                }
+                final DiffUtil.DiffResult diffResult = DiffUtil.calculateDiff(
+                        new SuggestionsDiffCallback(oldSuggestions, newSuggestions));
+                mMainThreadExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+
+                        if (generation == mGeneration) {
+                            callback.onDiffReady(newSuggestions, diffResult);
+                        }
+                    }
+                });
+            }
+        });
+        return generation;
+    }
+
+    /**
+     * Drops the result of any submission that hasn't been delivered yet.
+     */
+    public void cancel() {
+        mGeneration++;
+    }
+
+    /**
+     * Returns the generation of the latest submission or cancellation.
+     */
+    public int getGeneration() {
+        return mGeneration;
+    }
+}
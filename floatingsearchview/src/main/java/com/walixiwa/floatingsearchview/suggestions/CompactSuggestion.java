@@ -0,0 +1,85 @@
+package com.walixiwa.floatingsearchview.suggestions;
+
+/**
+ * Copyright (C) 2015 Ari C.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import android.os.Parcel;
+
+import com.walixiwa.floatingsearchview.suggestions.model.IdentifiableSearchSuggestion;
+
+/**
+ * A single row of a {@link CompactSuggestionList}. Its body string is
+ * only created when it's first asked for.
+ * <p/>
+ * A row that was parceled holds its own body and no longer
+ * refers to the list it came from.
+ */
+public class CompactSuggestion implements IdentifiableSearchSuggestion {
+
+    private final CompactSuggestionList mList;
+    private final int mIndex;
+    private final long mId;
+    private String mBody;
+
+    CompactSuggestion(CompactSuggestionList list, int index) {
+        this.mList = list;
+        this.mIndex = index;
+        this.mId = list.getId(index);
+    }
+
+    private CompactSuggestion(Parcel in) {
+        this.mList = null;
+        this.mIndex = -1;
+        this.mBody = in.readString();
+        this.mId = in.readLong();
+    }
+
+    @Override
+    public String getBody() {
+        if (mBody == null) {
+            mBody = mList.getBody(mIndex);
+        }
+        return mBody;
+    }
+
+    @Override
+    public long getSuggestionId() {
+        return mId;
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeString(getBody());
+        dest.writeLong(mId);
+    }
+
+    public static final Creator<CompactSuggestion> CREATOR = new Creator<CompactSuggestion>() {
+        @Override
+        public CompactSuggestion createFromParcel(Parcel in) {
+            return new CompactSuggestion(in);
+        }
+
+        @Override
+        public CompactSuggestion[] newArray(int size) {
+            return new CompactSuggestion[size];
+        }
+    };
+}
@@ -0,0 +1,256 @@
+package com.walixiwa.floatingsearchview.suggestions;
+
+/**
+ * Copyright (C) 2015 Ari C.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import com.walixiwa.floatingsearchview.util.ReversedList;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * An immutable list of suggestions for very large local data sets, like
+ * an offline catalog with hundreds of thousands of entries.
+ * <p/>
+ * Instead of one object per suggestion, all bodies are kept in a single
+ * char array, with an array of offsets into it and an array of ids, so a
+ * suggestion takes up little more than its characters and the list only
+ * consists of a few objects for the garbage collector. A
+ * {@link CompactSuggestion} row is only created when a suggestion is
+ * asked for with {@link #get(int)}, for example when its row is bound.
+ * <p/>
+ * The list is immutable, so the search view and its adapter show it as
+ * is, as with {@link com.walixiwa.floatingsearchview.FloatingSearchView#swapSuggestionsSnapshot(List)},
+ * even when it is passed to a method that otherwise copies the suggestions.
+ * Like a {@link PagedSuggestionList}, it is neither cached, diffed against
+ * the current suggestions nor filtered locally, since all of these would
+ * create a row for every suggestion. The bodies can be read in place with
+ * {@link #getBody(int, BodyView)}, which {@link FuzzyMatcher} does when
+ * matching against a compact list, and {@link FuzzyMatchIndex} when
+ * indexing one.
+ */
+public final class CompactSuggestionList extends AbstractList<CompactSuggestion> implements RandomAccess {
+
+    private final char[] mChars;
+    //the body of suggestion i spans mOffsets[i] to mOffsets[i + 1]
+    private final int[] mOffsets;
+    private final long[] mIds;
+    private final int mSize;
+
+    private CompactSuggestionList(char[] chars, int[] offsets, long[] ids, int size) {
+        this.mChars = chars;
+        this.mOffsets = offsets;
+        this.mIds = ids;
+        this.mSize = size;
+    }
+
+    /**
+     * Returns the compact list that the given list is, or that it shows in
+     * reverse order, as the search view does with swapped suggestions.
+     *
+     * @param list the list to check
+     * @return the compact list, or null if the given list isn't compact
+     */
+    public static CompactSuggestionList unwrap(List<?> list) {
+        if (list instanceof CompactSuggestionList) {
+            return (CompactSuggestionList) list;
+        }
+        if (list instanceof ReversedList) {
+            List<?> reversedList = ReversedList.of(list);
+            if (reversedList instanceof CompactSuggestionList) {
+                return (CompactSuggestionList) reversedList;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public CompactSuggestion get(int index) {
+        checkIndex(index);
+        return new CompactSuggestion(this, index);
+    }
+
+    @Override
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * Returns the id of the suggestion at the given index.
+     */
+    public long getId(int index) {
+        checkIndex(index);
+        return mIds[index];
+    }
+
+    /**
+     * Returns the body of the suggestion at the given index
+     * as a new string.
+     */
+    public String getBody(int index) {
+        checkIndex(index);
+        return new String(mChars, mOffsets[index], mOffsets[index + 1] - mOffsets[index]);
+    }
+
+    /**
+     * Returns the length of the body of the suggestion at the given index.
+     */
+    public int getBodyLength(int index) {
+        checkIndex(index);
+        return mOffsets[index + 1] - mOffsets[index];
+    }
+
+    /**
+     * Points the given view at the body of the suggestion at the given index,
+     * without copying it. Reusing one view while reading many bodies avoids
+     * creating any objects.
+     *
+     * @param index the index of the suggestion
+     * @param reuse a view to reuse, or null to create a new one
+     * @return the view, showing the body of the suggestion
+     */
+    public BodyView getBody(int index, BodyView reuse) {
+        checkIndex(index);
+        BodyView view = reuse != null ? reuse : new BodyView();
+        view.mChars = mChars;
+        view.mStart = mOffsets[index];
+        view.mLength = mOffsets[index + 1] - mOffsets[index];
+        return view;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= mSize) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + mSize);
+        }
+    }
+
+    /**
+     * A read-only view of the body of a suggestion in a
+     * {@link CompactSuggestionList}.
+     *
+     * @see CompactSuggestionList#getBody(int, BodyView)
+     */
+    public static final class BodyView implements CharSequence {
+
+        private char[] mChars;
+        private int mStart;
+        private int mLength;
+
+        @Override
+        public int length() {
+            return mLength;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= mLength) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Length: " + mLength);
+            }
+            return mChars[mStart + index];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            if (start < 0 || end > mLength || start > end) {
+                throw new IndexOutOfBoundsException("Start: " + start + ", End: " + end
+                        + ", Length: " + mLength);
+            }
+            return new String(mChars, mStart + start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            return new String(mChars, mStart, mLength);
+        }
+    }
+
+    /**
+     * Builds a {@link CompactSuggestionList}.
+     */
+    public static final class Builder {
+
+        private static final int DEFAULT_CAPACITY = 16;
+        private static final int DEFAULT_BODY_LENGTH = 16;
+
+        private char[] mChars;
+        private int[] mOffsets;
+        private long[] mIds;
+        private int mSize;
+
+        public Builder() {
+            this(DEFAULT_CAPACITY);
+        }
+
+        /**
+         * @param expectedSize the number of suggestions that will be added,
+         *                     to avoid growing the arrays while adding them
+         */
+        public Builder(int expectedSize) {
+            int capacity = Math.max(expectedSize, 1);
+            mChars = new char[capacity * DEFAULT_BODY_LENGTH];
+            mOffsets = new int[capacity + 1];
+            mIds = new long[capacity];
+        }
+
+        /**
+         * Adds a suggestion at the end of the list.
+         *
+         * @param body the suggestion's text
+         * @param id   an id that uniquely and stably identifies the suggestion
+         */
+        public Builder add(CharSequence body, long id) {
+            int start = mOffsets[mSize];
+            int end = start + body.length();
+            if (end > mChars.length) {
+                mChars = Arrays.copyOf(mChars, Math.max(end, mChars.length * 2));
+            }
+            if (mSize == mIds.length) {
+                mIds = Arrays.copyOf(mIds, mIds.length * 2);
+                mOffsets = Arrays.copyOf(mOffsets, mIds.length + 1);
+            }
+
+            if (body instanceof String) {
+                ((String) body).getChars(0, body.length(), mChars, start);
+            } else {
+                for (int i = 0; i < body.length(); i++) {
+                    mChars[start + i] = body.charAt(i);
+                }
+            }
+            mIds[mSize] = id;
+            mSize++;
+            mOffsets[mSize] = end;
+            return this;
+        }
+
+        /**
+         * Returns a list of the suggestions added so far. The arrays are
+         * trimmed to their used size, and the builder can't be used afterwards.
+         */
+        public CompactSuggestionList build() {
+            CompactSuggestionList list = new CompactSuggestionList(
+                    Arrays.copyOf(mChars, mOffsets[mSize]),
+                    Arrays.copyOf(mOffsets, mSize + 1),
+                    Arrays.copyOf(mIds, mSize),
+                    mSize);
+            mChars = null;
+            mOffsets = null;
+            mIds = null;
+            return list;
+        }
+    }
+}
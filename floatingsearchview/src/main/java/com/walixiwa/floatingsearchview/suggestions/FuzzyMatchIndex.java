@@ -0,0 +1,176 @@
+package com.walixiwa.floatingsearchview.suggestions;
+
+/**
+ * Copyright (C) 2015 Ari C.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+import com.walixiwa.floatingsearchview.suggestions.model.SearchSuggestion;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * An index of the words of a list of suggestions that {@link FuzzyMatcher}
+ * matches a query against without visiting every suggestion.
+ * <p/>
+ * The index holds the lower cased bodies back to back and every position
+ * a word starts at, sorted by the text that follows it, so word starts
+ * that begin with the same text are neighbours, like the leaves of a trie.
+ * The matcher walks them in that order and only computes the edit distance
+ * columns for the characters that differ from the previous word start, and
+ * skips every following word start that shares a prefix the query can no
+ * longer match within the maximum distance.
+ * <p/>
+ * Building an index sorts all word starts, which takes far longer than a
+ * single match (about 30 ms for 20k suggestions on a desktop core, see
+ * SuggestionsBenchmark), so build it once on a background thread when the
+ * list of suggestions changes and match every query against it. The index is
+ * immutable and can be shared between threads, the list must not be
+ * modified after the index was built from it.
+ */
+public final class FuzzyMatchIndex {
+
+    //neighbouring word starts are only compared up to this many characters, longer
+    //shared prefixes are recorded as this length, which only costs skipped work
+    static final int MAX_COMMON_PREFIX = 64;
+
+    private final List<? extends SearchSuggestion> mCandidates;
+
+    //lower cased bodies, body i spans mOffsets[i] to mOffsets[i + 1]
+    final char[] mChars;
+    final int[] mOffsets;
+
+    //positions in mChars that words start at, sorted by the text that follows them
+    final int[] mWordStarts;
+    //the candidate index that each sorted word start belongs to
+    final int[] mOwners;
+    //length of the prefix each sorted word start shares with the previous one
+    final byte[] mCommonPrefixes;
+
+    /**
+     * Builds an index of the given suggestions.
+     * <p/>
+     * The bodies of a {@link CompactSuggestionList} are read in place.
+     *
+     * @param candidates the suggestions to index, must not be modified afterwards
+     */
+    public FuzzyMatchIndex(List<? extends SearchSuggestion> candidates) {
+        this.mCandidates = candidates;
+        int size = candidates.size();
+        mOffsets = new int[size + 1];
+
+        CompactSuggestionList compactCandidates = candidates instanceof CompactSuggestionList ?
+                (CompactSuggestionList) candidates : null;
+        CompactSuggestionList.BodyView bodyView = null;
+        CharSequence[] bodies = compactCandidates == null ? new CharSequence[size] : null;
+        for (int i = 0; i < size; i++) {
+            int length;
+            if (compactCandidates != null) {
+                length = compactCandidates.getBodyLength(i);
+            } else {
+                bodies[i] = candidates.get(i).getBody();
+                length = bodies[i] != null ? bodies[i].length() : 0;
+            }
+            mOffsets[i + 1] = mOffsets[i] + length;
+        }
+
+        mChars = new char[mOffsets[size]];
+        int wordStartCount = 0;
+        int[] wordStarts = new int[Math.max(size, 16)];
+        int[] owners = new int[wordStarts.length];
+        for (int i = 0; i < size; i++) {
+            CharSequence body;
+            if (compactCandidates != null) {
+                bodyView = compactCandidates.getBody(i, bodyView);
+                body = bodyView;
+            } else {
+                body = bodies[i];
+            }
+            int offset = mOffsets[i];
+            int length = mOffsets[i + 1] - offset;
+            for (int j = 0; j < length; j++) {
+                mChars[offset + j] = Character.toLowerCase(body.charAt(j));
+                if (j == 0 || FuzzyMatcher.isWordStart(body, j)) {
+                    if (wordStartCount == wordStarts.length) {
+                        wordStarts = Arrays.copyOf(wordStarts, wordStartCount * 2);
+                        owners = Arrays.copyOf(owners, wordStartCount * 2);
+                    }
+                    wordStarts[wordStartCount] = offset + j;
+                    owners[wordStartCount] = i;
+                    wordStartCount++;
+                }
+            }
+        }
+
+        //a stable sort, so word starts that begin with the same text keep their order
+        Integer[] order = new Integer[wordStartCount];
+        for (int i = 0; i < wordStartCount; i++) {
+            order[i] = i;
+        }
+        final int[] unsortedWordStarts = wordStarts;
+        final int[] unsortedOwners = owners;
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                return compareWordStarts(unsortedWordStarts[a], unsortedOwners[a],
+                        unsortedWordStarts[b], unsortedOwners[b]);
+            }
+        });
+
+        mWordStarts = new int[wordStartCount];
+        mOwners = new int[wordStartCount];
+        mCommonPrefixes = new byte[wordStartCount];
+        for (int i = 0; i < wordStartCount; i++) {
+            mWordStarts[i] = unsortedWordStarts[order[i]];
+            mOwners[i] = unsortedOwners[order[i]];
+            if (i > 0) {
+                mCommonPrefixes[i] = (byte) commonPrefix(mWordStarts[i - 1], mOwners[i - 1],
+                        mWordStarts[i], mOwners[i]);
+            }
+        }
+    }
+
+    /**
+     * Returns the suggestions this index was built from.
+     */
+    public List<? extends SearchSuggestion> getCandidates() {
+        return mCandidates;
+    }
+
+    private int compareWordStarts(int start, int owner, int otherStart, int otherOwner) {
+        int length = Math.min(mOffsets[owner + 1] - start, MAX_COMMON_PREFIX);
+        int otherLength = Math.min(mOffsets[otherOwner + 1] - otherStart, MAX_COMMON_PREFIX);
+        int common = Math.min(length, otherLength);
+        for (int i = 0; i < common; i++) {
+            char c = mChars[start + i];
+            char otherC = mChars[otherStart + i];
+            if (c != otherC) {
+                return c < otherC ? -1 : 1;
+            }
+        }
+        return length - otherLength;
+    }
+
+    private int commonPrefix(int start, int owner, int otherStart, int otherOwner) {
+        int common = Math.min(Math.min(mOffsets[owner + 1] - start, mOffsets[otherOwner + 1] - otherStart),
+                MAX_COMMON_PREFIX);
+        for (int i = 0; i < common; i++) {
+            if (mChars[start + i] != mChars[otherStart + i]) {
+                return i;
+            }
+        }
+        return common;
+    }
+}
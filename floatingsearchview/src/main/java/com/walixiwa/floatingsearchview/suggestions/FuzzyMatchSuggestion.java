@@ -0,0 +1,108 @@
+package com.walixiwa.floatingsearchview.suggestions;
+
+/**
+ * Copyright (C) 2015 Ari C.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import android.os.Parcel;
+
+import com.walixiwa.floatingsearchview.suggestions.model.HighlightedSearchSuggestion;
+import com.walixiwa.floatingsearchview.suggestions.model.SearchSuggestion;
+
+/**
+ * A suggestion found by {@link FuzzyMatcher}, with the part of its
+ * body that matched the query as highlight range.
+ */
+public class FuzzyMatchSuggestion implements HighlightedSearchSuggestion {
+
+    private final SearchSuggestion mSuggestion;
+    private final int mDistance;
+    private final int mMatchStart;
+    private final int mMatchEnd;
+
+    public FuzzyMatchSuggestion(SearchSuggestion suggestion, int distance, int matchStart, int matchEnd) {
+        this.mSuggestion = suggestion;
+        this.mDistance = distance;
+        this.mMatchStart = matchStart;
+        this.mMatchEnd = matchEnd;
+    }
+
+    private FuzzyMatchSuggestion(Parcel in) {
+        this.mSuggestion = in.readParcelable(FuzzyMatchSuggestion.class.getClassLoader());
+        this.mDistance = in.readInt();
+        this.mMatchStart = in.readInt();
+        this.mMatchEnd = in.readInt();
+    }
+
+    /**
+     * Returns the suggestion that matched.
+     */
+    public SearchSuggestion getSuggestion() {
+        return mSuggestion;
+    }
+
+    /**
+     * Returns the number of edits needed to turn the query into
+     * the matched part of the body.
+     */
+    public int getDistance() {
+        return mDistance;
+    }
+
+    @Override
+    public String getBody() {
+        return mSuggestion.getBody();
+    }
+
+    @Override
+    public int getHighlightCount() {
+        return 1;
+    }
+
+    @Override
+    public int getHighlightStart(int index) {
+        return mMatchStart;
+    }
+
+    @Override
+    public int getHighlightEnd(int index) {
+        return mMatchEnd;
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeParcelable(mSuggestion, flags);
+        dest.writeInt(mDistance);
+        dest.writeInt(mMatchStart);
+        dest.writeInt(mMatchEnd);
+    }
+
+    public static final Creator<FuzzyMatchSuggestion> CREATOR = new Creator<FuzzyMatchSuggestion>() {
+        @Override
+        public FuzzyMatchSuggestion createFromParcel(Parcel in) {
+            return new FuzzyMatchSuggestion(in);
+        }
+
+        @Override
+        public FuzzyMatchSuggestion[] newArray(int size) {
+            return new FuzzyMatchSuggestion[size];
+        }
+    };
+}
@@ -0,0 +1,478 @@
+package com.walixiwa.floatingsearchview.suggestions;
+
+/**
+ * Copyright (C) 2015 Ari C.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import com.walixiwa.floatingsearchview.suggestions.model.SearchSuggestion;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Matches a query against the start of the words of candidate texts,
+ * tolerating a bounded number of typos.
+ * <p/>
+ * A candidate matches if one of its words starts with a text that is
+ * at most the maximum edit distance (insertions, deletions and
+ * substitutions, ignoring case) away from the query. The edit distance
+ * is computed one candidate character at a time, as a column of a dynamic
+ * program that is restricted to the band of cells within the maximum
+ * distance of the diagonal. A text stops being matched as soon as its
+ * whole column exceeds the maximum distance.
+ * <p/>
+ * Large lists of suggestions should be matched through a
+ * {@link FuzzyMatchIndex}. It sorts the word starts of all candidates, so
+ * that the columns computed for a prefix are shared by every word that
+ * starts with it, like walking a trie. Once a prefix can no longer match,
+ * every word that starts with it is skipped at once, so a query only costs
+ * the prefixes within the maximum distance of it instead of a dynamic
+ * program per candidate. Matching a list without an index visits every
+ * candidate, and is meant for small or frequently changing lists.
+ * <p/>
+ * Latency budget: ranking an index of 20k candidates of one to four words
+ * against a 6 character query with a maximum distance of 2 must take under
+ * 2 ms on a mid-range phone core. SuggestionsBenchmark in the :benchmark-jvm
+ * module measures it at about 0.06 ms on a single desktop core, leaving room
+ * for a phone core that is several times slower. Matching the same
+ * candidates without an index takes about 4 ms on the desktop core.
+ * <p/>
+ * This class is not thread safe, use one instance per thread.
+ */
+public class FuzzyMatcher {
+
+    private static final String TAG = "FuzzyMatcher";
+
+    public static final int DEFAULT_MAX_DISTANCE = 2;
+
+    private final int mMaxDistance;
+
+    //lower cased copy of the last query, so that matching many candidates
+    //against the same query lowers its characters only once
+    private char[] mQueryChars = new char[16];
+    private int mQueryLength;
+    private CharSequence mLastQuery;
+
+    //the dynamic program column of every matched text length up to the query length
+    //plus the maximum distance, and the best match found up to that length
+    private int[][] mColumns = new int[0][];
+    private int[] mBestDistances = new int[0];
+    private int[] mBestEnds = new int[0];
+
+    //result of the last successful match
+    private int mDistance;
+    private int mMatchStart;
+    private int mMatchEnd;
+
+    //best match of every candidate matched by the current matchAll call, stamped
+    //with the call's generation so they never need to be cleared
+    private int mGeneration;
+    private int[] mStamps = new int[0];
+    private int[] mDistances;
+    private int[] mStarts;
+    private int[] mEnds;
+    private int[] mLengths;
+    private int[] mMatched;
+    private int mMatchedCount;
+
+    public FuzzyMatcher() {
+        this(DEFAULT_MAX_DISTANCE);
+    }
+
+    /**
+     * @param maxDistance the maximum number of typos to tolerate, queries
+     *                    that are too short are matched with fewer,
+     *                    see {@link #maxDistanceFor(int)}
+     */
+    public FuzzyMatcher(int maxDistance) {
+        this.mMaxDistance = maxDistance;
+    }
+
+    /**
+     * Returns the number of typos tolerated for a query of the given length:
+     * none up to 2 characters, one up to 5 and up to the maximum beyond.
+     */
+    public int maxDistanceFor(int queryLength) {
+        if (queryLength <= 2) {
+            return 0;
+        } else if (queryLength <= 5) {
+            return Math.min(1, mMaxDistance);
+        }
+        return mMaxDistance;
+    }
+
+    /**
+     * Matches the query against the start of each word of the candidate.
+     * If it matches, the distance and matched range of the best match are
+     * available through {@link #getDistance()}, {@link #getMatchStart()} and
+     * {@link #getMatchEnd()} until the next call.
+     *
+     * @return true if the candidate matches
+     */
+    public boolean match(CharSequence query, CharSequence candidate) {
+        int queryLength = query.length();
+        if (queryLength == 0) {
+            return false;
+        }
+        int maxDistance = maxDistanceFor(queryLength);
+        prepareQuery(query, maxDistance);
+
+        int candidateLength = candidate.length();
+        if (missingQueryChars(candidate, candidateLength, maxDistance) > maxDistance) {
+            return false;
+        }
+
+        int bestDistance = maxDistance + 1;
+        for (int start = 0; start < candidateLength; start++) {
+            if (start > 0 && !isWordStart(candidate, start)) {
+                continue;
+            }
+            int length = matchAt(candidate, start, maxDistance);
+            int distance = mBestDistances[length];
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                mDistance = distance;
+                mMatchStart = start;
+                mMatchEnd = start + mBestEnds[length];
+                if (distance == 0) {
+                    break;
+                }
+            }
+        }
+        return bestDistance <= maxDistance;
+    }
+
+    public int getDistance() {
+        return mDistance;
+    }
+
+    public int getMatchStart() {
+        return mMatchStart;
+    }
+
+    public int getMatchEnd() {
+        return mMatchEnd;
+    }
+
+    /**
+     * Returns the candidates that match the query, best first: by distance,
+     * then by how early in the body the match starts, then by body length,
+     * then in the order of the candidates.
+     * <p/>
+     * Every candidate is visited, match large lists through a
+     * {@link FuzzyMatchIndex} with {@link #matchAll(String, FuzzyMatchIndex, int)}
+     * instead. The bodies of a {@link CompactSuggestionList} are matched in
+     * place, only the rows of the returned matches are created.
+     *
+     * @param limit the maximum number of matches to return
+     * @throws IllegalArgumentException if the limit is negative
+     */
+    public List<FuzzyMatchSuggestion> matchAll(String query, List<? extends SearchSuggestion> candidates,
+                                               int limit) {
+        checkLimit(limit);
+        beginMatches(candidates.size());
+
+        CompactSuggestionList compactCandidates = candidates instanceof CompactSuggestionList ?
+                (CompactSuggestionList) candidates : null;
+        CompactSuggestionList.BodyView bodyView = null;
+        for (int i = 0; i < candidates.size(); i++) {
+            CharSequence body;
+            if (compactCandidates != null) {
+                bodyView = compactCandidates.getBody(i, bodyView);
+                body = bodyView;
+            } else {
+                body = candidates.get(i).getBody();
+            }
+            if (body != null && match(query, body)) {
+                addMatch(i, mDistance, mMatchStart, mMatchEnd, body.length());
+            }
+        }
+        return collectMatches(candidates, limit);
+    }
+
+    /**
+     * Returns the candidates of the index that match the query, ranked
+     * like {@link #matchAll(String, List, int)} ranks them.
+     * <p/>
+     * Only the prefixes of the indexed words that are within the maximum
+     * distance of the query are visited, see {@link FuzzyMatchIndex}.
+     *
+     * @param limit the maximum number of matches to return
+     * @throws IllegalArgumentException if the limit is negative
+     */
+    public List<FuzzyMatchSuggestion> matchAll(String query, FuzzyMatchIndex index, int limit) {
+        checkLimit(limit);
+        List<? extends SearchSuggestion> candidates = index.getCandidates();
+        beginMatches(candidates.size());
+        if (query.length() > 0) {
+            matchIndex(query, index);
+        }
+        return collectMatches(candidates, limit);
+    }
+
+    private void matchIndex(String query, FuzzyMatchIndex index) {
+        final int maxDistance = maxDistanceFor(query.length());
+        prepareQuery(query, maxDistance);
+        final int maxLength = mQueryLength + maxDistance;
+        final char[] chars = index.mChars;
+        final int[] offsets = index.mOffsets;
+        final int[] wordStarts = index.mWordStarts;
+        final int[] owners = index.mOwners;
+        final byte[] commonPrefixes = index.mCommonPrefixes;
+        final int wordStartCount = wordStarts.length;
+
+        //the columns up to this length are those of the current word start's text
+        int validLength = 0;
+        //the length at which the previous word start's match was decided, the
+        //same goes for every following word start that shares this prefix
+        int decidedLength = Integer.MAX_VALUE;
+        int r = 0;
+        while (r < wordStartCount) {
+            int length;
+            if (commonPrefixes[r] >= decidedLength) {
+                length = decidedLength;
+                if (mBestDistances[length] > maxDistance) {
+                    //none of the word starts with this prefix match
+                    r++;
+                    while (r < wordStartCount && commonPrefixes[r] >= decidedLength) {
+                        r++;
+                    }
+                    continue;
+                }
+            } else {
+                int wordStart = wordStarts[r];
+                int textLength = Math.min(offsets[owners[r] + 1] - wordStart, maxLength);
+                length = Math.min(validLength, commonPrefixes[r]);
+                decidedLength = Integer.MAX_VALUE;
+                while (length < textLength) {
+                    length++;
+                    if (computeColumn(length, chars[wordStart + length - 1], maxDistance) > maxDistance) {
+                        decidedLength = length;
+                        break;
+                    }
+                }
+                if (length == maxLength) {
+                    decidedLength = length;
+                }
+                validLength = length;
+            }
+
+            int distance = mBestDistances[length];
+            if (distance <= maxDistance) {
+                int owner = owners[r];
+                int start = wordStarts[r] - offsets[owner];
+                addMatch(owner, distance, start, start + mBestEnds[length],
+                        offsets[owner + 1] - offsets[owner]);
+            }
+            r++;
+        }
+    }
+
+    private static void checkLimit(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("limit must not be negative");
+        }
+    }
+
+    private void beginMatches(int candidateCount) {
+        if (mStamps.length < candidateCount) {
+            mStamps = new int[candidateCount];
+            mDistances = new int[candidateCount];
+            mStarts = new int[candidateCount];
+            mEnds = new int[candidateCount];
+            mLengths = new int[candidateCount];
+            mMatched = new int[candidateCount];
+            mGeneration = 0;
+        }
+        mGeneration++;
+        mMatchedCount = 0;
+    }
+
+    //keeps the match of the given candidate if it's the first or the best so far,
+    //the one with the lowest distance and then the earliest start
+    private void addMatch(int index, int distance, int start, int end, int length) {
+        if (mStamps[index] != mGeneration) {
+            mStamps[index] = mGeneration;
+            mMatched[mMatchedCount++] = index;
+        } else if (distance > mDistances[index]
+                || (distance == mDistances[index] && start >= mStarts[index])) {
+            return;
+        }
+        mDistances[index] = distance;
+        mStarts[index] = start;
+        mEnds[index] = end;
+        mLengths[index] = length;
+    }
+
+    private List<FuzzyMatchSuggestion> collectMatches(List<? extends SearchSuggestion> candidates, int limit) {
+        //candidates are ranked in their order, so ties keep the earlier one
+        Arrays.sort(mMatched, 0, mMatchedCount);
+        int[] best = new int[Math.min(limit, mMatchedCount)];
+        int count = 0;
+        for (int m = 0; m < mMatchedCount; m++) {
+            int index = mMatched[m];
+            if (count < best.length) {
+                count++;
+            } else if (best.length == 0 || !ranksHigher(index, best[count - 1])) {
+                continue;
+            }
+            //insertion into the small sorted result window
+            int j = count - 1;
+            while (j > 0 && ranksHigher(index, best[j - 1])) {
+                best[j] = best[j - 1];
+                j--;
+            }
+            best[j] = index;
+        }
+
+        List<FuzzyMatchSuggestion> matches = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int index = best[i];
+            matches.add(new FuzzyMatchSuggestion(candidates.get(index), mDistances[index],
+                    mStarts[index], mEnds[index]));
+        }
+        return matches;
+    }
+
+    private boolean ranksHigher(int index, int otherIndex) {
+        if (mDistances[index] != mDistances[otherIndex]) {
+            return mDistances[index] < mDistances[otherIndex];
+        }
+        if (mStarts[index] != mStarts[otherIndex]) {
+            return mStarts[index] < mStarts[otherIndex];
+        }
+        return mLengths[index] < mLengths[otherIndex];
+    }
+
+    //matches the query against the text starting at the given position of the candidate,
+    //returns the length up to which columns were computed, the best match within it is
+    //at mBestDistances and mBestEnds of that length
+    private int matchAt(CharSequence candidate, int start, int maxDistance) {
+        int lastLength = Math.min(candidate.length() - start, mQueryLength + maxDistance);
+        int length = 0;
+        while (length < lastLength) {
+            length++;
+            char candidateChar = Character.toLowerCase(candidate.charAt(start + length - 1));
+            if (computeColumn(length, candidateChar, maxDistance) > maxDistance) {
+                break;
+            }
+        }
+        return length;
+    }
+
+    //computes the column of a matched text of the given length, whose last character is
+    //the given one, from the column of the text one character shorter. Returns the
+    //smallest distance in the column, a text that is longer can't get below it
+    private int computeColumn(int length, char candidateChar, int maxDistance) {
+        final char[] query = mQueryChars;
+        final int queryLength = mQueryLength;
+        final int outside = maxDistance + 1;
+        final int[] prev = mColumns[length - 1];
+        final int[] column = mColumns[length];
+        final int j = length;
+
+        int low = Math.max(1, j - maxDistance);
+        int high = Math.min(queryLength, j + maxDistance);
+
+        int columnMin;
+        if (low == 1) {
+            column[0] = j <= maxDistance ? j : outside;
+            columnMin = column[0];
+        } else {
+            column[low - 1] = outside;
+            columnMin = outside;
+        }
+
+        for (int i = low; i <= high; i++) {
+            int cost = query[i - 1] == candidateChar ? 0 : 1;
+            int value = prev[i - 1] + cost;
+            //prev[i] is outside of the previous column's band past j - 1 + maxDistance
+            if (i <= j - 1 + maxDistance) {
+                value = Math.min(value, prev[i] + 1);
+            }
+            value = Math.min(value, column[i - 1] + 1);
+            if (value > outside) {
+                value = outside;
+            }
+            column[i] = value;
+            if (value < columnMin) {
+                columnMin = value;
+            }
+        }
+
+        //on ties prefer the longer match, it highlights more of what was meant
+        mBestDistances[j] = mBestDistances[j - 1];
+        mBestEnds[j] = mBestEnds[j - 1];
+        if (high == queryLength && column[queryLength] <= mBestDistances[j]) {
+            mBestDistances[j] = column[queryLength];
+            mBestEnds[j] = j;
+        }
+        return columnMin;
+    }
+
+    //every query character that does not occur anywhere in the candidate has to be
+    //deleted or substituted, so their count is a lower bound of the distance that is much
+    //cheaper to compute than the distance itself and rejects most candidates. Characters
+    //are hashed into a 64 bit set, collisions can only lower the bound
+    private int missingQueryChars(CharSequence candidate, int candidateLength, int maxDistance) {
+        long candidateChars = 0;
+        for (int i = 0; i < candidateLength; i++) {
+            candidateChars |= 1L << Character.toLowerCase(candidate.charAt(i));
+        }
+        int missing = 0;
+        for (int i = 0; i < mQueryLength && missing <= maxDistance; i++) {
+            if ((candidateChars & (1L << mQueryChars[i])) == 0) {
+                missing++;
+            }
+        }
+        return missing;
+    }
+
+    static boolean isWordStart(CharSequence text, int index) {
+        return !Character.isLetterOrDigit(text.charAt(index - 1))
+                && Character.isLetterOrDigit(text.charAt(index));
+    }
+
+    private void prepareQuery(CharSequence query, int maxDistance) {
+        if (query == mLastQuery) {
+            return;
+        }
+        int length = query.length();
+        int maxLength = length + maxDistance;
+        if (mQueryChars.length < length) {
+            mQueryChars = new char[length];
+        }
+        if (mColumns.length < maxLength + 1 || mColumns[0].length < length + 1) {
+            mColumns = new int[maxLength + 1][length + 1];
+            mBestDistances = new int[maxLength + 1];
+            mBestEnds = new int[maxLength + 1];
+        }
+        for (int i = 0; i < length; i++) {
+            mQueryChars[i] = Character.toLowerCase(query.charAt(i));
+        }
+        mQueryLength = length;
+
+        //the empty text: reaching query position i takes i deletions
+        for (int i = 0; i <= Math.min(length, maxDistance); i++) {
+            mColumns[0][i] = i;
+        }
+        mBestDistances[0] = maxDistance + 1;
+        mBestEnds[0] = 0;
+
+        //only immutable queries can be recognized by identity
+        mLastQuery = query instanceof String ? query : null;
+    }
+}
@@ -0,0 +1,327 @@
+package com.walixiwa.floatingsearchview.suggestions;
+
+/**
+ * Copyright (C) 2015 Ari C.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import androidx.annotation.VisibleForTesting;
+import androidx.core.os.CancellationSignal;
+
+import com.walixiwa.floatingsearchview.suggestions.model.SearchSuggestion;
+import com.walixiwa.floatingsearchview.util.ReversedList;
+
+import java.util.AbstractList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.Executor;
+
+/**
+ * A list of suggestions of a known size whose rows are loaded page by
+ * page from a {@link PagedSuggestionSource} as they are asked for, so that
+ * lists of millions of suggestions, like all matches of a query in a large
+ * local index, can be shown with a bounded amount of memory.
+ * <p/>
+ * {@link #get(int)} returns null for rows that aren't loaded yet, and
+ * starts loading their page, and the pages within the prefetch distance
+ * around it, on the given executor. The search view's adapter shows these
+ * rows as empty placeholders, and rebinds them once their page was loaded.
+ * Only the most recently used pages are kept. Paged lists are never diffed
+ * against the previous suggestions, swapping one in always rebinds the list.
+ * The search view closes a paged list once other suggestions replace it,
+ * so a paged list can't be shown again after that. Paged lists are also
+ * never put in a {@link SuggestionCache}.
+ * <p/>
+ * All methods must be called from the main thread.
+ */
+public final class PagedSuggestionList extends AbstractList<SearchSuggestion> implements RandomAccess {
+
+    private static final String TAG = "PagedSuggestionList";
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int DEFAULT_PREFETCH_DISTANCE = 50;
+    public static final int DEFAULT_MAX_PAGES = 10;
+
+    private final PagedSuggestionSource mSource;
+    private final Executor mExecutor;
+    private final Executor mMainThreadExecutor;
+    private final int mSize;
+    private final int mPageSize;
+    private final int mPrefetchDistance;
+    private final int mMaxPages;
+
+    //loaded pages by page index, least recently used first
+    private final LinkedHashMap<Integer, List<? extends SearchSuggestion>> mPages;
+    //a plain map rather than a SparseArray, so that the list also works in local unit tests
+    private final Map<Integer, CancellationSignal> mLoadingPages = new HashMap<>();
+    private OnRangeLoadedListener mListener;
+    private boolean mClosed;
+
+    /**
+     * Interface for implementing a listener that is notified
+     * when rows of the list were loaded.
+     */
+    public interface OnRangeLoadedListener {
+
+        /**
+         * Called on the main thread when a range of rows was loaded.
+         *
+         * @param start the index of the first loaded row
+         * @param count the number of loaded rows
+         */
+        void onRangeLoaded(int start, int count);
+    }
+
+    private PagedSuggestionList(Builder builder) {
+        this.mSource = builder.mSource;
+        this.mExecutor = builder.mExecutor;
+        this.mMainThreadExecutor = builder.mMainThreadExecutor != null ?
+                builder.mMainThreadExecutor : new MainThreadExecutor();
+        this.mSize = builder.mSize;
+        this.mPageSize = builder.mPageSize;
+        this.mPrefetchDistance = builder.mPrefetchDistance;
+        //the pages around a single row always fit, so loading them can't evict each other
+        this.mMaxPages = Math.max(builder.mMaxPages, 2 * (mPrefetchDistance / mPageSize + 1) + 1);
+        this.mPages = new LinkedHashMap<Integer, List<? extends SearchSuggestion>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<? extends SearchSuggestion>> eldest) {
+                return size() > mMaxPages;
+            }
+        };
+    }
+
+    /**
+     * Returns the paged list that the given list is, or that it shows in
+     * reverse order, as the search view does with swapped suggestions.
+     *
+     * @param list the list to check
+     * @return the paged list, or null if the given list isn't paged
+     */
+    public static PagedSuggestionList unwrap(List<?> list) {
+        if (list instanceof PagedSuggestionList) {
+            return (PagedSuggestionList) list;
+        }
+        if (list instanceof ReversedList) {
+            List<?> reversedList = ReversedList.of(list);
+            if (reversedList instanceof PagedSuggestionList) {
+                return (PagedSuggestionList) reversedList;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the suggestion at the given index, or null if it isn't
+     * loaded yet. In that case, and when rows within the prefetch
+     * distance aren't loaded, loading their pages is started.
+     */
+    @Override
+    public SearchSuggestion get(int index) {
+        if (index < 0 || index >= mSize) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + mSize);
+        }
+
+        int page = index / mPageSize;
+        List<? extends SearchSuggestion> rows = mPages.get(page);
+        loadAround(index);
+
+        int row = index - page * mPageSize;
+        return rows != null && row < rows.size() ? rows.get(row) : null;
+    }
+
+    @Override
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * Sets the listener that will be notified when rows were loaded.
+     *
+     * @param listener the listener, or null to remove the current one
+     */
+    public void setOnRangeLoadedListener(OnRangeLoadedListener listener) {
+        this.mListener = listener;
+    }
+
+    /**
+     * Cancels all loads and drops the loaded pages. The list
+     * then only returns placeholders.
+     */
+    public void close() {
+        mClosed = true;
+        for (CancellationSignal signal : mLoadingPages.values()) {
+            signal.cancel();
+        }
+        mLoadingPages.clear();
+        mPages.clear();
+    }
+
+    private void loadAround(int index) {
+        if (mClosed) {
+            return;
+        }
+
+        int firstPage = Math.max(index - mPrefetchDistance, 0) / mPageSize;
+        int lastPage = Math.min(index + mPrefetchDistance, mSize - 1) / mPageSize;
+        for (int page = firstPage; page <= lastPage; page++) {
+            if (mLoadingPages.get(page) == null && !mPages.containsKey(page)) {
+                loadPage(page);
+            }
+        }
+        cancelDistantLoads(index / mPageSize);
+    }
+
+    //when scrolling fast, the pages that were passed are no longer needed
+    private void cancelDistantLoads(int currentPage) {
+        Iterator<Map.Entry<Integer, CancellationSignal>> iterator = mLoadingPages.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Integer, CancellationSignal> entry = iterator.next();
+            if (Math.abs(entry.getKey() - currentPage) > mMaxPages) {
+                entry.getValue().cancel();
+                iterator.remove();
+            }
+        }
+    }
+
+    private void loadPage(final int page) {
+        final int start = page * mPageSize;
+        final int count = Math.min(mPageSize, mSize - start);
+        final CancellationSignal signal = new CancellationSignal();
+        mLoadingPages.put(page, signal);
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+
+                if (!signal.isCanceled()) {
+                    mSource.loadRange(start, count, signal, new PageCallback(page, signal));
+                }
+            }
+        });
+    }
+
+    private class PageCallback implements PagedSuggestionSource.Callback {
+
+        private final int mPage;
+        private final CancellationSignal mCancellationSignal;
+
+        PageCallback(int page, CancellationSignal cancellationSignal) {
+            this.mPage = page;
+            this.mCancellationSignal = cancellationSignal;
+        }
+
+        @Override
+        public void onRangeLoaded(final List<? extends SearchSuggestion> suggestions) {
+            mMainThreadExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    if (finishLoad()) {
+                        mPages.put(mPage, suggestions);
+                        if (mListener != null) {
+                            mListener.onRangeLoaded(mPage * mPageSize, suggestions.size());
+                        }
+                    }
+                }
+            });
+        }
+
+        @Override
+        public void onRangeFailed(Throwable error) {
+            mMainThreadExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    finishLoad();
+                }
+            });
+        }
+
+        //returns true if this is the page's current load and it wasn't cancelled
+        private boolean finishLoad() {
+            if (mClosed || mLoadingPages.get(mPage) != mCancellationSignal) {
+                return false;
+            }
+            mLoadingPages.remove(mPage);
+            return !mCancellationSignal.isCanceled();
+        }
+    }
+
+    /**
+     * Builds a {@link PagedSuggestionList}.
+     */
+    public static final class Builder {
+
+        private final PagedSuggestionSource mSource;
+        private final int mSize;
+        private final Executor mExecutor;
+        private int mPageSize = DEFAULT_PAGE_SIZE;
+        private int mPrefetchDistance = DEFAULT_PREFETCH_DISTANCE;
+        private int mMaxPages = DEFAULT_MAX_PAGES;
+        private Executor mMainThreadExecutor;
+
+        /**
+         * @param source   the source that loads the suggestions
+         * @param size     the total number of suggestions
+         * @param executor the executor on which the source is called
+         */
+        public Builder(PagedSuggestionSource source, int size, Executor executor) {
+            this.mSource = source;
+            this.mSize = size;
+            this.mExecutor = executor;
+        }
+
+        /**
+         * Sets the number of suggestions that are loaded at once.
+         */
+        public Builder setPageSize(int pageSize) {
+            this.mPageSize = Math.max(pageSize, 1);
+            return this;
+        }
+
+        /**
+         * Sets how many rows before and after a requested row
+         * should be loaded ahead of being needed.
+         */
+        public Builder setPrefetchDistance(int prefetchDistance) {
+            this.mPrefetchDistance = Math.max(prefetchDistance, 0);
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of pages that are kept in memory. It's
+         * raised if needed to fit all pages within the prefetch distance
+         * of a row.
+         */
+        public Builder setMaxPages(int maxPages) {
+            this.mMaxPages = maxPages;
+            return this;
+        }
+
+        /**
+         * Sets the executor that stands in for the main thread, on which
+         * loaded pages are handed to the list.
+         */
+        @VisibleForTesting
+        Builder setMainThreadExecutor(Executor mainThreadExecutor) {
+            this.mMainThreadExecutor = mainThreadExecutor;
+            return this;
+        }
+
+        public PagedSuggestionList build() {
+            return new PagedSuggestionList(this);
+        }
+    }
+}
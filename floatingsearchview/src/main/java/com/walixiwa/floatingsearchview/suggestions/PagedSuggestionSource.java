@@ -0,0 +1,65 @@
+package com.walixiwa.floatingsearchview.suggestions;
+
+/**
+ * Copyright (C) 2015 Ari C.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import androidx.core.os.CancellationSignal;
+
+import com.walixiwa.floatingsearchview.suggestions.model.SearchSuggestion;
+
+import java.util.List;
+
+/**
+ * A source that loads ranges of a very large list of suggestions on
+ * demand, for example from a disk index, for a {@link PagedSuggestionList}.
+ */
+public interface PagedSuggestionSource {
+
+    /**
+     * Callback through which a source delivers a loaded range.
+     * It can be called from any thread, but only once per load.
+     */
+    interface Callback {
+
+        /**
+         * Delivers the suggestions of the requested range.
+         *
+         * @param suggestions the suggestions, in list order. The list
+         *                    is not modified.
+         */
+        void onRangeLoaded(List<? extends SearchSuggestion> suggestions);
+
+        /**
+         * Reports that loading the range failed. The range is
+         * requested again the next time one of its rows is needed.
+         *
+         * @param error the cause of the failure, may be null
+         */
+        void onRangeFailed(Throwable error);
+    }
+
+    /**
+     * Called on a background thread to load a range of suggestions.
+     * The result may be delivered synchronously or at a later time.
+     *
+     * @param start              the index of the first suggestion to load
+     * @param count              the number of suggestions to load
+     * @param cancellationSignal cancelled when the range is no longer needed,
+     *                           results of cancelled loads are ignored
+     * @param callback           the callback to deliver the result to
+     */
+    void loadRange(int start, int count, CancellationSignal cancellationSignal, Callback callback);
+}
@@ -17,7 +17,13 @@ package com.walixiwa.floatingsearchview.suggestions;
  */
 
 import android.content.Context;
+import android.content.res.ColorStateList;
+import android.graphics.Typeface;
 import android.graphics.drawable.Drawable;
+import android.text.Spannable;
+import android.text.SpannableStringBuilder;
+import android.text.TextUtils;
+import android.text.style.StyleSpan;
 import android.util.TypedValue;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -26,31 +32,97 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.core.graphics.drawable.DrawableCompat;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.walixiwa.floatingsearchview.R;
+import com.walixiwa.floatingsearchview.suggestions.history.HistorySuggestion;
+import com.walixiwa.floatingsearchview.suggestions.model.HighlightedSearchSuggestion;
 import com.walixiwa.floatingsearchview.suggestions.model.SearchSuggestion;
+import com.walixiwa.floatingsearchview.util.TintedDrawableCache;
 import com.walixiwa.floatingsearchview.util.Util;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class SearchSuggestionsAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
 
     private static final String TAG = "SearchSuggestionsAdapter";
 
-    private List<SearchSuggestion> mSearchSuggestions = new ArrayList<>();
+    /**
+     * Payload of item changes that only affect the highlighted part of
+     * the suggestions' text, see {@link #setHighlightQuery(CharSequence)}.
+     */
+    public static final String PAYLOAD_QUERY_CHANGED = "query_changed";
+
+    /**
+     * Payload of item changes that only affect the styling of the
+     * suggestions, like the text color or the right icon's color and visibility.
+     */
+    public static final String PAYLOAD_STYLE_CHANGED = "style_changed";
+
+    private List<? extends SearchSuggestion> mSearchSuggestions = new ArrayList<>();
+
+    //set if the current suggestions are paged, to rebind rows once they are loaded
+    private PagedSuggestionList mPagedSuggestions;
+    private boolean mIsPagedListReversed;
+    private final PagedSuggestionList.OnRangeLoadedListener mRangeLoadedListener =
+            new PagedSuggestionList.OnRangeLoadedListener() {
+
+                @Override
+                public void onRangeLoaded(int start, int count) {
+                    int positionStart = mIsPagedListReversed ? getItemCount() - start - count : start;
+                    notifyItemRangeChanged(positionStart, count);
+                }
+            };
 
     private Listener mListener;
 
+    private final SearchSuggestionViewHolder.Listener mViewHolderListener =
+            new SearchSuggestionViewHolder.Listener() {
+
+                @Override
+                public void onItemClicked(int adapterPosition) {
+
+                    if (mListener != null && adapterPosition != RecyclerView.NO_POSITION) {
+                        SearchSuggestion suggestion = mSearchSuggestions.get(adapterPosition);
+                        //placeholders of paged suggestions can't be selected
+                        if (suggestion != null) {
+                            mListener.onItemSelected(suggestion);
+                        }
+                    }
+                }
+
+                @Override
+                public void onMoveItemToSearchClicked(int adapterPosition) {
+
+                    if (mListener != null && adapterPosition != RecyclerView.NO_POSITION) {
+                        SearchSuggestion suggestion = mSearchSuggestions.get(adapterPosition);
+                        if (suggestion != null) {
+                            mListener.onMoveItemToSearchClicked(suggestion);
+                        }
+                    }
+                }
+            };
+
     private Context mContext;
 
     private Drawable mRightIconDrawable;
+    private Drawable mHistoryIconDrawable;
     private boolean mShowRightMoveUpBtn = false;
     private int mBodyTextSizePx;
     private int mTextColor = -1;
     private int mRightIconColor = -1;
-
+    private boolean mIncrementalUpdates;
+    private String mHighlightQuery;
+
+    /**
+     * Called after a suggestion was fully bound. It isn't called for partial
+     * binds, like the ones caused by a query highlight or color change, which
+     * only reapply the affected part of the row. Use
+     * {@link OnBindSuggestionPayloadCallback} to also handle those.
+     */
     public interface OnBindSuggestionCallback {
 
         void onBindSuggestion(View suggestionView, ImageView leftIcon, TextView textView,
@@ -59,6 +131,24 @@ public class SearchSuggestionsAdapter extends RecyclerView.Adapter<RecyclerView.
 
     private OnBindSuggestionCallback mOnBindSuggestionCallback;
 
+    /**
+     * Like {@link OnBindSuggestionCallback}, but also receives the payloads
+     * of partial binds, so that it can skip the work that the change
+     * doesn't affect.
+     */
+    public interface OnBindSuggestionPayloadCallback {
+
+        /**
+         * @param payloads empty for a full bind, otherwise the reasons of
+         *                 the partial bind, like {@link #PAYLOAD_QUERY_CHANGED}
+         *                 or {@link #PAYLOAD_STYLE_CHANGED}
+         */
+        void onBindSuggestion(View suggestionView, ImageView leftIcon, TextView textView,
+                              SearchSuggestion item, int itemPosition, List<Object> payloads);
+    }
+
+    private OnBindSuggestionPayloadCallback mOnBindSuggestionPayloadCallback;
+
     public interface Listener {
 
         void onItemSelected(SearchSuggestion item);
@@ -73,6 +163,18 @@ public class SearchSuggestionsAdapter extends RecyclerView.Adapter<RecyclerView.
         public ImageView rightIcon;
 
         private Listener mListener;
+        private boolean mShowsHistoryIcon;
+        private int mTextSizePx;
+        //the body's colors as inflated, for adapters that don't set a text color
+        private final ColorStateList mDefaultTextColors;
+
+        //two reused bodies take turns, so that the next highlighted body is never built
+        //in the text the text view still shows, and binding allocates nothing once
+        //enough spans were created
+        private SpannableStringBuilder mHighlightedBody = new SpannableStringBuilder();
+        private SpannableStringBuilder mSpareHighlightedBody = new SpannableStringBuilder();
+        private final List<StyleSpan> mHighlightSpans = new ArrayList<>();
+        private int mHighlightSpanCount;
 
         public interface Listener {
 
@@ -86,9 +188,22 @@ public class SearchSuggestionsAdapter extends RecyclerView.Adapter<RecyclerView.
 
             mListener = listener;
             body = (TextView) v.findViewById(R.id.body);
+            mDefaultTextColors = body.getTextColors();
             leftIcon = (ImageView) v.findViewById(R.id.left_icon);
             rightIcon = (ImageView) v.findViewById(R.id.right_icon);
+            body.setSpannableFactory(new Spannable.Factory() {
+
+                @Override
+                public Spannable newSpannable(CharSequence source) {
 
+                    //let the text view show the highlighted body itself instead of a copy,
+                    //any other text, like one set by an OnBindSuggestionCallback, is still copied
+                    if (source == mHighlightedBody) {
+                        return mHighlightedBody;
+                    }
+                    return super.newSpannable(source);
+                }
+            });
             rightIcon.setOnClickListener(new View.OnClickListener() {
                 @Override
                 public void onClick(View v) {
@@ -107,21 +222,149 @@ public class SearchSuggestionsAdapter extends RecyclerView.Adapter<RecyclerView.
                 }
             });
         }
+
+        private void bindBody(SearchSuggestion suggestion, String highlightQuery) {
+            String text = suggestion.getBody();
+            if (text == null) {
+                text = "";
+            }
+
+            if (suggestion instanceof HighlightedSearchSuggestion) {
+                HighlightedSearchSuggestion highlighted = (HighlightedSearchSuggestion) suggestion;
+                beginHighlights(text);
+                for (int i = 0; i < highlighted.getHighlightCount(); i++) {
+                    addHighlight(highlighted.getHighlightStart(i), highlighted.getHighlightEnd(i));
+                }
+            } else {
+                int start = highlightQuery != null ? indexOfIgnoreCase(text, highlightQuery) : -1;
+                if (start == -1) {
+                    body.setText(text);
+                    return;
+                }
+                beginHighlights(text);
+                addHighlight(start, start + highlightQuery.length());
+            }
+            body.setText(mHighlightedBody, TextView.BufferType.SPANNABLE);
+        }
+
+        private void beginHighlights(String text) {
+            //the body shown until now becomes the spare one
+            SpannableStringBuilder nextBody = mSpareHighlightedBody;
+            mSpareHighlightedBody = mHighlightedBody;
+            mHighlightedBody = nextBody;
+
+            //also drops the text view's watchers from when this body was last shown
+            mHighlightedBody.clearSpans();
+            mHighlightSpanCount = 0;
+            mHighlightedBody.replace(0, mHighlightedBody.length(), text);
+        }
+
+        private void addHighlight(int start, int end) {
+            start = Math.max(0, start);
+            end = Math.min(mHighlightedBody.length(), end);
+            if (start >= end) {
+                return;
+            }
+            if (mHighlightSpanCount == mHighlightSpans.size()) {
+                mHighlightSpans.add(new StyleSpan(Typeface.BOLD));
+            }
+            mHighlightedBody.setSpan(mHighlightSpans.get(mHighlightSpanCount++), start, end,
+                    Spannable.SPAN_EXCLUSIVE_EXCLUSIVE);
+        }
     }
 
+
     public SearchSuggestionsAdapter(Context context, int suggestionTextSize, Listener listener) {
         this.mContext = context;
         this.mListener = listener;
         this.mBodyTextSizePx = suggestionTextSize;
 
-        mRightIconDrawable = Util.getWrappedDrawable(mContext, R.drawable.ic_arrow_back_black_24dp);
-        DrawableCompat.setTint(mRightIconDrawable, Util.getColor(mContext, R.color.gray_active_icon));
+        int iconColor = Util.getColor(mContext, R.color.gray_active_icon);
+        mRightIconDrawable = TintedDrawableCache.get(mContext, R.drawable.ic_arrow_back_black_24dp, iconColor);
+        mHistoryIconDrawable = TintedDrawableCache.get(mContext, R.drawable.ic_history_black_24dp, iconColor);
     }
 
+    /**
+     * Replaces the current suggestions with a copy of the given ones.
+     * <p/>
+     * A {@link PagedSuggestionList} is not copied, as that would load all of
+     * its rows, and neither is an immutable {@link CompactSuggestionList}.
+     * Both are used as is.
+     *
+     * @param searchSuggestions the new suggestions
+     */
     public void swapData(List<? extends SearchSuggestion> searchSuggestions) {
-        mSearchSuggestions.clear();
-        mSearchSuggestions.addAll(searchSuggestions);
-        notifyDataSetChanged();
+        if (PagedSuggestionList.unwrap(searchSuggestions) == null
+                && CompactSuggestionList.unwrap(searchSuggestions) == null) {
+            searchSuggestions = new ArrayList<>(searchSuggestions);
+        }
+        swapDataSnapshot(searchSuggestions);
+    }
+
+    /**
+     * Replaces the current suggestions with the given list without copying it.
+     * <p/>
+     * The given list is used as is and must not be modified afterwards.
+     *
+     * @param searchSuggestions the new suggestions
+     */
+    public void swapDataSnapshot(List<? extends SearchSuggestion> searchSuggestions) {
+        boolean wasPaged = mPagedSuggestions != null;
+        observePagedSuggestions(searchSuggestions);
+        //paged and compact lists are too large to diff, and paged rows may not be loaded
+        if (mIncrementalUpdates && !wasPaged && mPagedSuggestions == null
+                && CompactSuggestionList.unwrap(mSearchSuggestions) == null
+                && CompactSuggestionList.unwrap(searchSuggestions) == null) {
+            DiffUtil.DiffResult diffResult = DiffUtil.calculateDiff(
+                    new SuggestionsDiffCallback(mSearchSuggestions, searchSuggestions));
+            mSearchSuggestions = searchSuggestions;
+            diffResult.dispatchUpdatesTo(this);
+        } else {
+            mSearchSuggestions = searchSuggestions;
+            notifyDataSetChanged();
+        }
+    }
+
+    /**
+     * Replaces the current suggestions with suggestions whose difference
+     * from the current ones was already computed, for example by
+     * {@link AsyncSuggestionsDiffer}.
+     * <p/>
+     * The given list is used as is and must not be modified afterwards.
+     *
+     * @param searchSuggestions the new suggestions
+     * @param diffResult        the difference between the current and new suggestions
+     */
+    public void swapData(List<? extends SearchSuggestion> searchSuggestions,
+                         DiffUtil.DiffResult diffResult) {
+        observePagedSuggestions(searchSuggestions);
+        mSearchSuggestions = searchSuggestions;
+        diffResult.dispatchUpdatesTo(this);
+    }
+
+    private void observePagedSuggestions(List<? extends SearchSuggestion> searchSuggestions) {
+        PagedSuggestionList pagedSuggestions = PagedSuggestionList.unwrap(searchSuggestions);
+        if (mPagedSuggestions != null && mPagedSuggestions != pagedSuggestions) {
+            //its in-flight loads would otherwise keep running for rows nobody shows
+            mPagedSuggestions.setOnRangeLoadedListener(null);
+            mPagedSuggestions.close();
+        }
+        mPagedSuggestions = pagedSuggestions;
+        mIsPagedListReversed = pagedSuggestions != null && pagedSuggestions != searchSuggestions;
+        if (pagedSuggestions != null) {
+            pagedSuggestions.setOnRangeLoadedListener(mRangeLoadedListener);
+        }
+    }
+
+    /**
+     * Sets whether {@link #swapData(List)} and {@link #swapDataSnapshot(List)} should compute the difference between
+     * the current and the new suggestions and only notify about the items that
+     * were inserted, removed, moved or changed, instead of rebinding every item.
+     *
+     * @param incremental true to enable incremental updates
+     */
+    public void setIncrementalUpdates(boolean incremental) {
+        this.mIncrementalUpdates = incremental;
     }
 
     public List<? extends SearchSuggestion> getDataSet() {
@@ -132,37 +375,84 @@ public class SearchSuggestionsAdapter extends RecyclerView.Adapter<RecyclerView.
         this.mOnBindSuggestionCallback = callback;
     }
 
+    public void setOnBindSuggestionPayloadCallback(OnBindSuggestionPayloadCallback callback) {
+        this.mOnBindSuggestionPayloadCallback = callback;
+    }
+
+    /**
+     * Sets the query whose first occurrence, ignoring case, is highlighted in
+     * the text of suggestions that don't implement {@link HighlightedSearchSuggestion}.
+     * <p/>
+     * Changing the query only rebinds the suggestions' text, with a
+     * {@link #PAYLOAD_QUERY_CHANGED} payload.
+     *
+     * @param query the query to highlight, or null or empty to highlight nothing
+     */
+    public void setHighlightQuery(CharSequence query) {
+        String highlightQuery = query == null || query.length() == 0 ? null : query.toString();
+        if (TextUtils.equals(mHighlightQuery, highlightQuery)) {
+            return;
+        }
+        mHighlightQuery = highlightQuery;
+        notifyItemRangeChanged(0, getItemCount(), PAYLOAD_QUERY_CHANGED);
+    }
+
     @Override
     public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup viewGroup, int i) {
 
         View view = LayoutInflater.from(viewGroup.getContext())
                 .inflate(R.layout.search_suggestion_item, viewGroup, false);
-        SearchSuggestionViewHolder viewHolder = new SearchSuggestionViewHolder(view,
-                new SearchSuggestionViewHolder.Listener() {
+        SearchSuggestionViewHolder viewHolder = new SearchSuggestionViewHolder(view, mViewHolderListener);
 
-                    @Override
-                    public void onItemClicked(int adapterPosition) {
+        viewHolder.rightIcon.setImageDrawable(mRightIconDrawable);
+        viewHolder.body.setTextSize(TypedValue.COMPLEX_UNIT_PX, mBodyTextSizePx);
+        viewHolder.mTextSizePx = mBodyTextSizePx;
 
-                        if (mListener != null) {
-                            mListener.onItemSelected(mSearchSuggestions.get(adapterPosition));
-                        }
-                    }
+        return viewHolder;
+    }
 
-                    @Override
-                    public void onMoveItemToSearchClicked(int adapterPosition) {
+    //holders can come from a recycled view pool that is shared with other adapters,
+    //so anything adapter specific that is set when a holder is created is reapplied here
+    private void bindAdapterState(SearchSuggestionViewHolder viewHolder) {
+        viewHolder.mListener = mViewHolderListener;
+        if (viewHolder.mTextSizePx != mBodyTextSizePx) {
+            viewHolder.body.setTextSize(TypedValue.COMPLEX_UNIT_PX, mBodyTextSizePx);
+            viewHolder.mTextSizePx = mBodyTextSizePx;
+        }
+    }
 
-                        if (mListener != null) {
-                            mListener.onMoveItemToSearchClicked(mSearchSuggestions
-                                    .get(adapterPosition));
-                        }
-                    }
+    @Override
+    public void onBindViewHolder(RecyclerView.ViewHolder vh, int position, List<Object> payloads) {
 
-                });
+        if (payloads.isEmpty()) {
+            onBindViewHolder(vh, position);
+            return;
+        }
 
-        viewHolder.rightIcon.setImageDrawable(mRightIconDrawable);
-        viewHolder.body.setTextSize(TypedValue.COMPLEX_UNIT_PX, mBodyTextSizePx);
+        SearchSuggestionViewHolder viewHolder = (SearchSuggestionViewHolder) vh;
+        SearchSuggestion suggestionItem = mSearchSuggestions.get(position);
+        if (suggestionItem == null) {
+            onBindViewHolder(vh, position);
+            return;
+        }
+        for (int i = 0; i < payloads.size(); i++) {
+            Object payload = payloads.get(i);
+            if (PAYLOAD_QUERY_CHANGED.equals(payload)) {
+                viewHolder.bindBody(suggestionItem, mHighlightQuery);
+            } else if (PAYLOAD_STYLE_CHANGED.equals(payload)) {
+                bindStyle(viewHolder);
+            } else {
+                //a change this adapter doesn't know how to apply partially
+                onBindViewHolder(vh, position);
+                return;
+            }
+        }
 
-        return viewHolder;
+        //the legacy callback can't tell a partial bind from a full one, so it only gets full binds
+        if (mOnBindSuggestionPayloadCallback != null) {
+            mOnBindSuggestionPayloadCallback.onBindSuggestion(viewHolder.itemView, viewHolder.leftIcon,
+                    viewHolder.body, suggestionItem, position, payloads);
+        }
     }
 
     @Override
@@ -170,20 +460,58 @@ public class SearchSuggestionsAdapter extends RecyclerView.Adapter<RecyclerView.
 
         SearchSuggestionViewHolder viewHolder = (SearchSuggestionViewHolder) vh;
 
+        bindAdapterState(viewHolder);
+        bindStyle(viewHolder);
+
+        SearchSuggestion suggestionItem = mSearchSuggestions.get(position);
+        if (suggestionItem == null) {
+            //a row of paged suggestions that isn't loaded yet
+            viewHolder.body.setText(null);
+            if (viewHolder.mShowsHistoryIcon) {
+                viewHolder.leftIcon.setImageDrawable(null);
+                viewHolder.mShowsHistoryIcon = false;
+            }
+            return;
+        }
+        viewHolder.bindBody(suggestionItem, mHighlightQuery);
+
+        if (suggestionItem instanceof HistorySuggestion) {
+            viewHolder.leftIcon.setImageDrawable(mHistoryIconDrawable);
+            viewHolder.mShowsHistoryIcon = true;
+        } else if (viewHolder.mShowsHistoryIcon) {
+            viewHolder.leftIcon.setImageDrawable(null);
+            viewHolder.mShowsHistoryIcon = false;
+        }
+
+        if (mOnBindSuggestionCallback != null) {
+            mOnBindSuggestionCallback.onBindSuggestion(viewHolder.itemView, viewHolder.leftIcon, viewHolder.body,
+                    suggestionItem, position);
+        }
+        if (mOnBindSuggestionPayloadCallback != null) {
+            mOnBindSuggestionPayloadCallback.onBindSuggestion(viewHolder.itemView, viewHolder.leftIcon,
+                    viewHolder.body, suggestionItem, position, Collections.<Object>emptyList());
+        }
+    }
+
+    private void bindStyle(SearchSuggestionViewHolder viewHolder) {
+
         if (!mShowRightMoveUpBtn) {
             viewHolder.rightIcon.setEnabled(false);
             viewHolder.rightIcon.setVisibility(View.INVISIBLE);
         } else {
             viewHolder.rightIcon.setEnabled(true);
             viewHolder.rightIcon.setVisibility(View.VISIBLE);
+            //no-op unless the holder was created by another adapter sharing the pool
+            viewHolder.rightIcon.setImageDrawable(mRightIconDrawable);
+            //the icon drawable is shared, redraw it in case its tint changed
+            viewHolder.rightIcon.invalidate();
         }
 
-        SearchSuggestion suggestionItem = mSearchSuggestions.get(position);
-        viewHolder.body.setText(suggestionItem.getBody());
-
-        if (mOnBindSuggestionCallback != null) {
-            mOnBindSuggestionCallback.onBindSuggestion(viewHolder.itemView, viewHolder.leftIcon, viewHolder.body,
-                    suggestionItem, position);
+        if (mTextColor != -1) {
+            viewHolder.body.setTextColor(mTextColor);
+        } else {
+            //the holder may have been colored by another adapter sharing the pool
+            viewHolder.body.setTextColor(viewHolder.mDefaultTextColors);
         }
     }
 
@@ -200,7 +528,7 @@ public class SearchSuggestionsAdapter extends RecyclerView.Adapter<RecyclerView.
         }
         this.mTextColor = color;
         if (notify) {
-            notifyDataSetChanged();
+            notifyItemRangeChanged(0, getItemCount(), PAYLOAD_STYLE_CHANGED);
         }
     }
 
@@ -211,8 +539,35 @@ public class SearchSuggestionsAdapter extends RecyclerView.Adapter<RecyclerView.
             notify = true;
         }
         this.mRightIconColor = color;
+        if (color != -1) {
+            DrawableCompat.setTint(mRightIconDrawable, color);
+        }
         if (notify) {
-            notifyDataSetChanged();
+            notifyItemRangeChanged(0, getItemCount(), PAYLOAD_STYLE_CHANGED);
+        }
+    }
+
+    /**
+     * Sets the text color, right icon color and right icon visibility at
+     * once, rebinding the suggestions' style only once if any of them changed.
+     */
+    public void setStyle(int textColor, int rightIconColor, boolean showMoveUpIcon) {
+
+        boolean notify = false;
+        if (this.mTextColor != textColor || this.mShowRightMoveUpBtn != showMoveUpIcon) {
+            notify = true;
+        }
+        if (this.mRightIconColor != rightIconColor) {
+            notify = true;
+            if (rightIconColor != -1) {
+                DrawableCompat.setTint(mRightIconDrawable, rightIconColor);
+            }
+        }
+        this.mTextColor = textColor;
+        this.mRightIconColor = rightIconColor;
+        this.mShowRightMoveUpBtn = showMoveUpIcon;
+        if (notify) {
+            notifyItemRangeChanged(0, getItemCount(), PAYLOAD_STYLE_CHANGED);
         }
     }
 
@@ -224,7 +579,17 @@ public class SearchSuggestionsAdapter extends RecyclerView.Adapter<RecyclerView.
         }
         this.mShowRightMoveUpBtn = show;
         if (notify) {
-            notifyDataSetChanged();
+            notifyItemRangeChanged(0, getItemCount(), PAYLOAD_STYLE_CHANGED);
+        }
+    }
+
+    private static int indexOfIgnoreCase(String text, String query) {
+        int last = text.length() - query.length();
+        for (int i = 0; i <= last; i++) {
+            if (text.regionMatches(true, i, query, 0, query.length())) {
+                return i;
+            }
         }
+        return -1;
     }
 }
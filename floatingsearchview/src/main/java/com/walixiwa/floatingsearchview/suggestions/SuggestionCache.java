@@ -0,0 +1,181 @@
+package com.walixiwa.floatingsearchview.suggestions;
+
+/**
+ * Copyright (C) 2015 Ari C.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import com.walixiwa.floatingsearchview.suggestions.model.SearchSuggestion;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * An in-memory LRU cache of suggestion lists, keyed by normalized query.
+ * <p/>
+ * Queries are normalized by trimming leading and trailing whitespace and
+ * lower-casing them, so "Java " and "java" share the same entry. The cache
+ * is bounded both by its number of entries and by the approximate number
+ * of bytes its suggestions take up, and evicts the least recently used
+ * entries when either bound is exceeded.
+ * <p/>
+ * This class is thread safe.
+ */
+public class SuggestionCache {
+
+    private static final String TAG = "SuggestionCache";
+
+    //rough per-object overheads used to approximate the retained size
+    private static final int LIST_OVERHEAD_BYTES = 64;
+    private static final int SUGGESTION_OVERHEAD_BYTES = 48;
+
+    private final int mMaxEntries;
+    private final long mMaxBytes;
+
+    private final LinkedHashMap<String, Entry> mEntries = new LinkedHashMap<>(16, 0.75f, true);
+    private long mBytes;
+
+    private int mHitCount;
+    private int mMissCount;
+    private int mEvictionCount;
+
+    private static class Entry {
+
+        final List<? extends SearchSuggestion> suggestions;
+        final long bytes;
+
+        Entry(List<? extends SearchSuggestion> suggestions, long bytes) {
+            this.suggestions = suggestions;
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * @param maxEntries the maximum number of queries to keep suggestions for
+     * @param maxBytes   the maximum approximate size of all the cached suggestions
+     */
+    public SuggestionCache(int maxEntries, long maxBytes) {
+        if (maxEntries <= 0 || maxBytes <= 0) {
+            throw new IllegalArgumentException("maxEntries and maxBytes must be positive");
+        }
+        this.mMaxEntries = maxEntries;
+        this.mMaxBytes = maxBytes;
+    }
+
+    /**
+     * Returns the key under which the suggestions for the given query are cached.
+     */
+    public static String normalizeQuery(String query) {
+        return query.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Returns the cached suggestions for the given query and marks them as
+     * recently used.
+     *
+     * @return an unmodifiable list of suggestions, or null if none are cached
+     */
+    public synchronized List<? extends SearchSuggestion> get(String query) {
+        Entry entry = mEntries.get(normalizeQuery(query));
+        if (entry == null) {
+            mMissCount++;
+            return null;
+        }
+        mHitCount++;
+        return entry.suggestions;
+    }
+
+    /**
+     * Caches the suggestions for the given query, replacing any suggestions
+     * that were cached for it before. The list is copied.
+     * <p/>
+     * {@link PagedSuggestionList}s are not cached, since copying one would
+     * load all of its pages, and neither are {@link CompactSuggestionList}s,
+     * since copying one would create a row for every suggestion.
+     */
+    public synchronized void put(String query, List<? extends SearchSuggestion> suggestions) {
+        if (PagedSuggestionList.unwrap(suggestions) != null
+                || CompactSuggestionList.unwrap(suggestions) != null) {
+            return;
+        }
+        List<SearchSuggestion> copy = Collections.unmodifiableList(
+                new ArrayList<SearchSuggestion>(suggestions));
+        Entry entry = new Entry(copy, sizeOf(copy));
+        Entry previous = mEntries.put(normalizeQuery(query), entry);
+        if (previous != null) {
+            mBytes -= previous.bytes;
+        }
+        mBytes += entry.bytes;
+        trim();
+    }
+
+    /**
+     * Removes all the cached suggestions. The counters are kept.
+     */
+    public synchronized void clear() {
+        mEntries.clear();
+        mBytes = 0;
+    }
+
+    public synchronized int size() {
+        return mEntries.size();
+    }
+
+    /**
+     * Returns the approximate size of all the cached suggestions.
+     */
+    public synchronized long byteSize() {
+        return mBytes;
+    }
+
+    public synchronized int getHitCount() {
+        return mHitCount;
+    }
+
+    public synchronized int getMissCount() {
+        return mMissCount;
+    }
+
+    public synchronized int getEvictionCount() {
+        return mEvictionCount;
+    }
+
+    /**
+     * Returns the approximate number of bytes the given suggestions take up.
+     * Override to account for data held by custom suggestion types.
+     */
+    protected long sizeOf(List<? extends SearchSuggestion> suggestions) {
+        long bytes = LIST_OVERHEAD_BYTES;
+        for (int i = 0; i < suggestions.size(); i++) {
+            String body = suggestions.get(i).getBody();
+            bytes += SUGGESTION_OVERHEAD_BYTES + (body != null ? 2L * body.length() : 0);
+        }
+        return bytes;
+    }
+
+    private void trim() {
+        Iterator<Map.Entry<String, Entry>> iterator = mEntries.entrySet().iterator();
+        while ((mEntries.size() > mMaxEntries || mBytes > mMaxBytes) && iterator.hasNext()) {
+            Entry eldest = iterator.next().getValue();
+            iterator.remove();
+            mBytes -= eldest.bytes;
+            mEvictionCount++;
+        }
+    }
+}
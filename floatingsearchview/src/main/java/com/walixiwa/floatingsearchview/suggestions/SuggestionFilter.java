@@ -0,0 +1,58 @@
+package com.walixiwa.floatingsearchview.suggestions;
+
+/**
+ * Copyright (C) 2015 Ari C.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import com.walixiwa.floatingsearchview.suggestions.model.SearchSuggestion;
+
+/**
+ * Decides locally whether a suggestion still matches a query.
+ * <p/>
+ * Used to narrow down the suggestions of a query to the ones that
+ * match a longer query that extends it, while the suggestions for the
+ * longer query are being fetched.
+ */
+public interface SuggestionFilter {
+
+    /**
+     * A filter that matches suggestions whose body contains the
+     * query, ignoring case.
+     */
+    SuggestionFilter CONTAINS = new SuggestionFilter() {
+        @Override
+        public boolean matches(SearchSuggestion suggestion, String normalizedQuery) {
+            String body = suggestion.getBody();
+            if (body == null) {
+                return false;
+            }
+            int queryLength = normalizedQuery.length();
+            for (int i = 0; i + queryLength <= body.length(); i++) {
+                if (body.regionMatches(true, i, normalizedQuery, 0, queryLength)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    };
+
+    /**
+     * @param suggestion      the suggestion to check
+     * @param normalizedQuery the query, trimmed and lower-cased as by
+     *                        {@link SuggestionCache#normalizeQuery(String)}
+     * @return true if the suggestion matches the query
+     */
+    boolean matches(SearchSuggestion suggestion, String normalizedQuery);
+}
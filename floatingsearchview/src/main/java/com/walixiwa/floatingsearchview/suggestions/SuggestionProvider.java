@@ -0,0 +1,69 @@
+package com.walixiwa.floatingsearchview.suggestions;
+
+/**
+ * Copyright (C) 2015 Ari C.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import androidx.core.os.CancellationSignal;
+
+import com.walixiwa.floatingsearchview.suggestions.model.SearchSuggestion;
+
+import java.util.List;
+
+/**
+ * A source of suggestions that {@link com.walixiwa.floatingsearchview.FloatingSearchView}
+ * queries as the user types.
+ * <p/>
+ * The view takes care of debouncing the queries, showing the progress
+ * indicator while a request is in flight, and making sure that only the
+ * results of the newest request are shown.
+ */
+public interface SuggestionProvider {
+
+    /**
+     * Callback through which a provider delivers the result of a request.
+     * It can be called from any thread, but only once per request.
+     */
+    interface Callback {
+
+        /**
+         * Delivers the suggestions for the request's query.
+         *
+         * @param suggestions the suggestions, in the order they should appear
+         *                    from top to bottom. The list is not modified.
+         */
+        void onSuggestionsReady(List<? extends SearchSuggestion> suggestions);
+
+        /**
+         * Reports that the request failed. The currently shown
+         * suggestions are kept.
+         *
+         * @param error the cause of the failure, may be null
+         */
+        void onSuggestionsFailed(Throwable error);
+    }
+
+    /**
+     * Called on a background thread to request the suggestions for a query.
+     * The result may be delivered synchronously or at a later time.
+     *
+     * @param query              the query to get suggestions for
+     * @param cancellationSignal cancelled when the request is superseded by a newer
+     *                           one or the search loses focus. Results of cancelled
+     *                           requests are ignored.
+     * @param callback           the callback to deliver the result to
+     */
+    void requestSuggestions(String query, CancellationSignal cancellationSignal, Callback callback);
+}
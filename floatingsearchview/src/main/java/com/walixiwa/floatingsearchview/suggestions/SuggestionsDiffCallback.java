@@ -0,0 +1,107 @@
+package com.walixiwa.floatingsearchview.suggestions;
+
+/**
+ * Copyright (C) 2015 Ari C.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import androidx.recyclerview.widget.DiffUtil;
+
+import com.walixiwa.floatingsearchview.suggestions.model.HighlightedSearchSuggestion;
+import com.walixiwa.floatingsearchview.suggestions.model.IdentifiableSearchSuggestion;
+import com.walixiwa.floatingsearchview.suggestions.model.SearchSuggestion;
+
+import java.util.List;
+
+/**
+ * Computes the difference between two suggestion lists.
+ * <p/>
+ * Two suggestions are considered to be the same item if they both
+ * implement {@link IdentifiableSearchSuggestion} and have the same id,
+ * otherwise if they have the same body. The contents of two items
+ * are considered the same if their bodies and, for
+ * {@link HighlightedSearchSuggestion}s, their highlighted ranges are
+ * equal, since that is what the suggestion's row shows.
+ */
+public class SuggestionsDiffCallback extends DiffUtil.Callback {
+
+    private final List<? extends SearchSuggestion> mOldList;
+    private final List<? extends SearchSuggestion> mNewList;
+
+    public SuggestionsDiffCallback(List<? extends SearchSuggestion> oldList,
+                                   List<? extends SearchSuggestion> newList) {
+        this.mOldList = oldList;
+        this.mNewList = newList;
+    }
+
+    @Override
+    public int getOldListSize() {
+        return mOldList.size();
+    }
+
+    @Override
+    public int getNewListSize() {
+        return mNewList.size();
+    }
+
+    @Override
+    public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+        SearchSuggestion oldItem = mOldList.get(oldItemPosition);
+        SearchSuggestion newItem = mNewList.get(newItemPosition);
+
+        if (oldItem instanceof IdentifiableSearchSuggestion
+                && newItem instanceof IdentifiableSearchSuggestion) {
+            return ((IdentifiableSearchSuggestion) oldItem).getSuggestionId()
+                    == ((IdentifiableSearchSuggestion) newItem).getSuggestionId();
+        }
+        return haveSameBody(oldItem, newItem);
+    }
+
+    @Override
+    public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+        SearchSuggestion oldItem = mOldList.get(oldItemPosition);
+        SearchSuggestion newItem = mNewList.get(newItemPosition);
+
+        return haveSameBody(oldItem, newItem) && haveSameHighlights(oldItem, newItem);
+    }
+
+    //plain Java rather than TextUtils, so that diffing also runs on the JVM
+    private static boolean haveSameBody(SearchSuggestion oldItem, SearchSuggestion newItem) {
+        String oldBody = oldItem.getBody();
+        String newBody = newItem.getBody();
+        return oldBody == null ? newBody == null : oldBody.equals(newBody);
+    }
+
+    private static boolean haveSameHighlights(SearchSuggestion oldItem, SearchSuggestion newItem) {
+        boolean oldHighlighted = oldItem instanceof HighlightedSearchSuggestion;
+        boolean newHighlighted = newItem instanceof HighlightedSearchSuggestion;
+        if (!oldHighlighted || !newHighlighted) {
+            return oldHighlighted == newHighlighted;
+        }
+
+        HighlightedSearchSuggestion oldHighlights = (HighlightedSearchSuggestion) oldItem;
+        HighlightedSearchSuggestion newHighlights = (HighlightedSearchSuggestion) newItem;
+        int count = oldHighlights.getHighlightCount();
+        if (count != newHighlights.getHighlightCount()) {
+            return false;
+        }
+        for (int i = 0; i < count; i++) {
+            if (oldHighlights.getHighlightStart(i) != newHighlights.getHighlightStart(i)
+                    || oldHighlights.getHighlightEnd(i) != newHighlights.getHighlightEnd(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
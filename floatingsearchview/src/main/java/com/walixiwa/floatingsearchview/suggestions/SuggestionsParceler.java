@@ -0,0 +1,148 @@
+package com.walixiwa.floatingsearchview.suggestions;
+
+/**
+ * Copyright (C) 2015 Ari C.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import android.os.BadParcelableException;
+import android.os.Parcel;
+import android.os.Parcelable;
+
+import com.walixiwa.floatingsearchview.suggestions.model.SearchSuggestion;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes suggestions to a parcel, for example to keep them in a view's
+ * saved state, and reads them back.
+ * <p/>
+ * Unlike {@link Parcel#writeList(List)}, which writes the class name of
+ * every element and looks up its creator for every element it reads, the
+ * suggestions are written in runs of suggestions of the same class. Only
+ * the first suggestion of a run is written with its class name, and the
+ * others are read with that suggestion's creator, so a list of suggestions
+ * of one class costs a single class name and creator lookup.
+ */
+public final class SuggestionsParceler {
+
+    private SuggestionsParceler() {
+    }
+
+    /**
+     * Writes the given suggestions to a parcel.
+     *
+     * @param out         the parcel to write to
+     * @param suggestions the suggestions to write, may be null
+     * @param flags       the flags passed to each suggestion's
+     *                    {@link Parcelable#writeToParcel(Parcel, int)}
+     */
+    public static void writeSuggestions(Parcel out, List<? extends SearchSuggestion> suggestions,
+                                        int flags) {
+        if (suggestions == null) {
+            out.writeInt(-1);
+            return;
+        }
+        int size = suggestions.size();
+        out.writeInt(size);
+
+        Class<?> runClass = null;
+        int runStart = 0;
+        int runLengthPosition = 0;
+        for (int i = 0; i < size; i++) {
+            SearchSuggestion suggestion = suggestions.get(i);
+            if (suggestion.getClass() != runClass) {
+                if (runClass != null) {
+                    writeIntAt(out, runLengthPosition, i - runStart);
+                }
+                runClass = suggestion.getClass();
+                runStart = i;
+                runLengthPosition = out.dataPosition();
+                //overwritten once the run's length is known
+                out.writeInt(0);
+                out.writeParcelable(suggestion, flags);
+            } else {
+                suggestion.writeToParcel(out, flags);
+            }
+        }
+        if (runClass != null) {
+            writeIntAt(out, runLengthPosition, size - runStart);
+        }
+    }
+
+    /**
+     * Reads suggestions that were written with
+     * {@link #writeSuggestions(Parcel, List, int)}.
+     *
+     * @param in          the parcel to read from
+     * @param classLoader the class loader used to load the suggestions' classes
+     * @return a new list containing the suggestions, or null if null was written
+     * @throws BadParcelableException if a suggestion's class or creator can't be found
+     */
+    public static List<SearchSuggestion> readSuggestions(Parcel in, ClassLoader classLoader) {
+        int size = in.readInt();
+        if (size < 0) {
+            return null;
+        }
+
+        List<SearchSuggestion> suggestions = new ArrayList<>(size);
+        while (suggestions.size() < size) {
+            int runLength = in.readInt();
+            if (runLength <= 0 || runLength > size - suggestions.size()) {
+                throw new BadParcelableException("Invalid run of " + runLength + " suggestions");
+            }
+            SearchSuggestion first = in.readParcelable(classLoader);
+            if (first == null) {
+                throw new BadParcelableException("Missing suggestion at index " + suggestions.size());
+            }
+            suggestions.add(first);
+            if (runLength == 1) {
+                continue;
+            }
+
+            Parcelable.Creator<?> creator = getCreator(first.getClass());
+            for (int i = 1; i < runLength; i++) {
+                Object suggestion = creator instanceof Parcelable.ClassLoaderCreator ?
+                        ((Parcelable.ClassLoaderCreator<?>) creator).createFromParcel(in, classLoader) :
+                        creator.createFromParcel(in);
+                suggestions.add((SearchSuggestion) suggestion);
+            }
+        }
+        return suggestions;
+    }
+
+    private static void writeIntAt(Parcel out, int position, int value) {
+        int end = out.dataPosition();
+        out.setDataPosition(position);
+        out.writeInt(value);
+        out.setDataPosition(end);
+    }
+
+    //the parcel already found the class when it read the run's first suggestion
+    private static Parcelable.Creator<?> getCreator(Class<?> suggestionClass) {
+        try {
+            Object creator = suggestionClass.getField("CREATOR").get(null);
+            if (!(creator instanceof Parcelable.Creator)) {
+                throw new BadParcelableException("CREATOR of " + suggestionClass.getName()
+                        + " is not a Parcelable.Creator");
+            }
+            return (Parcelable.Creator<?>) creator;
+        } catch (NoSuchFieldException e) {
+            throw new BadParcelableException(e);
+        } catch (IllegalAccessException e) {
+            throw new BadParcelableException(e);
+        }
+    }
+}
@@ -0,0 +1,412 @@
+package com.walixiwa.floatingsearchview.suggestions.history;
+
+/**
+ * Copyright (C) 2015 Ari C.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import com.walixiwa.floatingsearchview.suggestions.SuggestionCache;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * A compact prefix index of searched queries.
+ * <p/>
+ * Queries are kept in parallel arrays sorted by their normalized form,
+ * so that all the queries that start with a prefix occupy a contiguous
+ * range that is found with two binary searches. The queries in that
+ * range are ranked by how often, and then how recently, they were
+ * searched.
+ * <p/>
+ * An index loaded by a {@link SearchHistoryStore} keeps the queries of the
+ * store's index file in the memory-mapped file, and searches them there.
+ * Only the queries that are recorded or changed afterwards are moved to
+ * the arrays, so loading doesn't decode the whole history.
+ * <p/>
+ * Positions returned by {@link #find(String, int[])} are only valid
+ * until the index is modified. This class is not thread safe.
+ */
+public class HistoryIndex {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    //the queries recorded or changed since the index file was written
+    private String[] mKeys = new String[INITIAL_CAPACITY];
+    private String[] mQueries = new String[INITIAL_CAPACITY];
+    private int[] mUseCounts = new int[INITIAL_CAPACITY];
+    private long[] mLastUsedMillis = new long[INITIAL_CAPACITY];
+    private int mHeapSize;
+
+    //the queries of the index file, the ones that were removed or changed since are marked
+    private HistoryIndexFile mFile;
+    private BitSet mRemovedFromFile;
+    private int mFileSize;
+
+    /**
+     * Records that the given query was searched at the given time.
+     *
+     * @return true if the query wasn't in the index before
+     */
+    public boolean record(String query, long timeMillis) {
+        String key = SuggestionCache.normalizeQuery(query);
+        if (key.length() == 0) {
+            return false;
+        }
+        int pos = Arrays.binarySearch(mKeys, 0, mHeapSize, key);
+        if (pos >= 0) {
+            mQueries[pos] = query.trim();
+            mUseCounts[pos]++;
+            mLastUsedMillis[pos] = Math.max(mLastUsedMillis[pos], timeMillis);
+            return false;
+        }
+        int filePos = findInFile(key);
+        if (filePos >= 0) {
+            //the file is read-only, so the changed query moves to the arrays
+            removeFromFile(filePos);
+            insert(-(pos + 1), key, query.trim(), mFile.getUseCount(filePos) + 1,
+                    Math.max(mFile.getLastUsedMillis(filePos), timeMillis));
+            return false;
+        }
+        insert(-(pos + 1), key, query.trim(), 1, timeMillis);
+        return true;
+    }
+
+    /**
+     * Puts the given query with its use count and last use time into the
+     * index, replacing what was recorded for it before.
+     */
+    public void put(String query, int useCount, long lastUsedMillis) {
+        String key = SuggestionCache.normalizeQuery(query);
+        if (key.length() == 0) {
+            return;
+        }
+        int pos = Arrays.binarySearch(mKeys, 0, mHeapSize, key);
+        if (pos >= 0) {
+            mQueries[pos] = query.trim();
+            mUseCounts[pos] = useCount;
+            mLastUsedMillis[pos] = lastUsedMillis;
+        } else {
+            int filePos = findInFile(key);
+            if (filePos >= 0) {
+                removeFromFile(filePos);
+            }
+            insert(-(pos + 1), key, query.trim(), useCount, lastUsedMillis);
+        }
+    }
+
+    /**
+     * Removes the given query from the index.
+     *
+     * @return true if the query was in the index
+     */
+    public boolean remove(String query) {
+        String key = SuggestionCache.normalizeQuery(query);
+        int pos = Arrays.binarySearch(mKeys, 0, mHeapSize, key);
+        if (pos >= 0) {
+            removeAt(pos);
+            return true;
+        }
+        int filePos = findInFile(key);
+        if (filePos >= 0) {
+            removeFromFile(filePos);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Removes the least recently used query.
+     *
+     * @return the removed query, or null if the index is empty
+     */
+    public String removeLeastRecentlyUsed() {
+        if (size() == 0) {
+            return null;
+        }
+        int oldest = mHeapSize > 0 ? 0 : ~mRemovedFromFile.nextClearBit(0);
+        long oldestMillis = getLastUsedMillis(oldest);
+        for (int i = 1; i < mHeapSize; i++) {
+            if (mLastUsedMillis[i] < oldestMillis) {
+                oldest = i;
+                oldestMillis = mLastUsedMillis[i];
+            }
+        }
+        for (int i = 0; mFile != null && i < mFile.size(); i++) {
+            if (!mRemovedFromFile.get(i) && mFile.getLastUsedMillis(i) < oldestMillis) {
+                oldest = ~i;
+                oldestMillis = mFile.getLastUsedMillis(i);
+            }
+        }
+        String query = getQuery(oldest);
+        if (oldest >= 0) {
+            removeAt(oldest);
+        } else {
+            removeFromFile(~oldest);
+        }
+        return query;
+    }
+
+    /**
+     * Returns a copy of this index that is independent of later changes.
+     */
+    public HistoryIndex copy() {
+        HistoryIndex copy = new HistoryIndex();
+        int capacity = Math.max(mHeapSize, INITIAL_CAPACITY);
+        copy.mKeys = Arrays.copyOf(mKeys, capacity);
+        copy.mQueries = Arrays.copyOf(mQueries, capacity);
+        copy.mUseCounts = Arrays.copyOf(mUseCounts, capacity);
+        copy.mLastUsedMillis = Arrays.copyOf(mLastUsedMillis, capacity);
+        copy.mHeapSize = mHeapSize;
+        //the file is read-only, so it can be shared
+        copy.mFile = mFile;
+        copy.mRemovedFromFile = mRemovedFromFile != null ? (BitSet) mRemovedFromFile.clone() : null;
+        copy.mFileSize = mFileSize;
+        return copy;
+    }
+
+    public void clear() {
+        Arrays.fill(mKeys, 0, mHeapSize, null);
+        Arrays.fill(mQueries, 0, mHeapSize, null);
+        mHeapSize = 0;
+        mFile = null;
+        mRemovedFromFile = null;
+        mFileSize = 0;
+    }
+
+    public int size() {
+        return mHeapSize + mFileSize;
+    }
+
+    public String getQuery(int position) {
+        return position >= 0 ? mQueries[position] : mFile.getQuery(~position);
+    }
+
+    public int getUseCount(int position) {
+        return position >= 0 ? mUseCounts[position] : mFile.getUseCount(~position);
+    }
+
+    public long getLastUsedMillis(int position) {
+        return position >= 0 ? mLastUsedMillis[position] : mFile.getLastUsedMillis(~position);
+    }
+
+    /**
+     * Finds the best ranked queries that start with the given prefix.
+     *
+     * @param prefix       the prefix to look up, it is normalized the same way
+     *                     as the recorded queries. An empty prefix matches all queries.
+     * @param outPositions receives the positions of the matching queries, best ranked
+     *                     first. Its length is the maximum number of results.
+     * @return the number of positions written to outPositions
+     */
+    public int find(String prefix, int[] outPositions) {
+        if (outPositions.length == 0) {
+            return 0;
+        }
+        String key = SuggestionCache.normalizeQuery(prefix);
+        int count = 0;
+
+        int start = lowerBound(key);
+        int end = prefixUpperBound(key, start);
+        for (int i = start; i < end; i++) {
+            count = addRanked(i, outPositions, count);
+        }
+
+        if (mFile != null) {
+            int fileStart = fileLowerBound(key);
+            int fileEnd = filePrefixUpperBound(key, fileStart);
+            for (int i = fileStart; i < fileEnd; i++) {
+                if (!mRemovedFromFile.get(i)) {
+                    count = addRanked(~i, outPositions, count);
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Starts searching the queries of the given index file in place.
+     * The index must be empty.
+     */
+    void setFile(HistoryIndexFile file) {
+        if (size() != 0) {
+            throw new IllegalStateException("The index isn't empty");
+        }
+        mFile = file;
+        mRemovedFromFile = new BitSet();
+        mFileSize = file.size();
+    }
+
+    /**
+     * Returns the normalized query at the given position.
+     */
+    String getKey(int position) {
+        return position >= 0 ? mKeys[position] : mFile.getKey(~position);
+    }
+
+    /**
+     * Returns the positions of all the queries, sorted by their normalized form.
+     */
+    int[] positionsInKeyOrder() {
+        int[] positions = new int[size()];
+        int count = 0;
+        int heapPos = 0;
+        for (int i = 0; mFile != null && i < mFile.size(); i++) {
+            if (mRemovedFromFile.get(i)) {
+                continue;
+            }
+            //a query is either in the file or in the arrays, never in both
+            while (heapPos < mHeapSize && mFile.compareKey(i, mKeys[heapPos]) > 0) {
+                positions[count++] = heapPos++;
+            }
+            positions[count++] = ~i;
+        }
+        while (heapPos < mHeapSize) {
+            positions[count++] = heapPos++;
+        }
+        return positions;
+    }
+
+    //inserts the position into the small sorted result window, returns the new result count
+    private int addRanked(int position, int[] outPositions, int count) {
+        if (count < outPositions.length) {
+            count++;
+        } else if (!ranksHigher(position, outPositions[count - 1])) {
+            return count;
+        }
+        int j = count - 1;
+        while (j > 0 && ranksHigher(position, outPositions[j - 1])) {
+            outPositions[j] = outPositions[j - 1];
+            j--;
+        }
+        outPositions[j] = position;
+        return count;
+    }
+
+    private boolean ranksHigher(int position, int otherPosition) {
+        int useCount = getUseCount(position);
+        int otherUseCount = getUseCount(otherPosition);
+        if (useCount != otherUseCount) {
+            return useCount > otherUseCount;
+        }
+        return getLastUsedMillis(position) > getLastUsedMillis(otherPosition);
+    }
+
+    //first position whose key is >= the given key
+    private int lowerBound(String key) {
+        int low = 0;
+        int high = mHeapSize;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (mKeys[mid].compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    //first position from start on whose key doesn't start with the given prefix
+    private int prefixUpperBound(String prefix, int start) {
+        int low = start;
+        int high = mHeapSize;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (mKeys[mid].startsWith(prefix)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    //the same as lowerBound and prefixUpperBound for the file, removed queries included
+    private int fileLowerBound(String key) {
+        int low = 0;
+        int high = mFile.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (mFile.compareKey(mid, key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int filePrefixUpperBound(String prefix, int start) {
+        int low = start;
+        int high = mFile.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (mFile.keyStartsWith(mid, prefix)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    //returns the file position of the given key, or -1 if it isn't in the file or was removed
+    private int findInFile(String key) {
+        if (mFile == null) {
+            return -1;
+        }
+        int pos = fileLowerBound(key);
+        if (pos < mFile.size() && mFile.compareKey(pos, key) == 0 && !mRemovedFromFile.get(pos)) {
+            return pos;
+        }
+        return -1;
+    }
+
+    private void removeFromFile(int filePos) {
+        mRemovedFromFile.set(filePos);
+        mFileSize--;
+    }
+
+    private void insert(int pos, String key, String query, int useCount, long lastUsedMillis) {
+        if (mHeapSize == mKeys.length) {
+            int newCapacity = mHeapSize * 2;
+            mKeys = Arrays.copyOf(mKeys, newCapacity);
+            mQueries = Arrays.copyOf(mQueries, newCapacity);
+            mUseCounts = Arrays.copyOf(mUseCounts, newCapacity);
+            mLastUsedMillis = Arrays.copyOf(mLastUsedMillis, newCapacity);
+        }
+        int moved = mHeapSize - pos;
+        System.arraycopy(mKeys, pos, mKeys, pos + 1, moved);
+        System.arraycopy(mQueries, pos, mQueries, pos + 1, moved);
+        System.arraycopy(mUseCounts, pos, mUseCounts, pos + 1, moved);
+        System.arraycopy(mLastUsedMillis, pos, mLastUsedMillis, pos + 1, moved);
+        mKeys[pos] = key;
+        mQueries[pos] = query;
+        mUseCounts[pos] = useCount;
+        mLastUsedMillis[pos] = lastUsedMillis;
+        mHeapSize++;
+    }
+
+    private void removeAt(int pos) {
+        int moved = mHeapSize - pos - 1;
+        System.arraycopy(mKeys, pos + 1, mKeys, pos, moved);
+        System.arraycopy(mQueries, pos + 1, mQueries, pos, moved);
+        System.arraycopy(mUseCounts, pos + 1, mUseCounts, pos, moved);
+        System.arraycopy(mLastUsedMillis, pos + 1, mLastUsedMillis, pos, moved);
+        mHeapSize--;
+        mKeys[mHeapSize] = null;
+        mQueries[mHeapSize] = null;
+    }
+}
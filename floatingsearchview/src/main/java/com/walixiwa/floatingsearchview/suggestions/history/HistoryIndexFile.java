@@ -0,0 +1,242 @@
+package com.walixiwa.floatingsearchview.suggestions.history;
+
+/**
+ * Copyright (C) 2015 Ari C.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A read-only, memory-mapped history index file that is searched in
+ * place, so opening it doesn't decode any of its queries.
+ * <p/>
+ * The file starts with a header, followed by a table with one fixed-size
+ * record per query in key order, and the characters of the keys and
+ * queries as UTF-16. Keys are compared char by char, the same way
+ * {@link String#compareTo(String)} does. Every offset and length in the
+ * table is checked against the file size when it is opened, so that a
+ * corrupt or truncated file is rejected up front rather than failing
+ * a later lookup.
+ * <p/>
+ * Reads don't change any state, so a file may be read from several threads.
+ */
+final class HistoryIndexFile {
+
+    private static final int MAGIC = 0x46534849; //"FSHI"
+    private static final int VERSION = 2;
+
+    //magic, version, generation, record count, char count
+    private static final int HEADER_BYTES = 5 * 4;
+    //key start, key length, query start, query length, use count, last used millis
+    private static final int RECORD_BYTES = 5 * 4 + 8;
+
+    private final ByteBuffer mRecords;
+    private final CharBuffer mChars;
+    private final int mGeneration;
+    private final int mSize;
+
+    /**
+     * Thrown when an index file is corrupt, truncated or of an unknown version.
+     */
+    static class CorruptFileException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        CorruptFileException(String message) {
+            super(message);
+        }
+    }
+
+    private HistoryIndexFile(ByteBuffer records, CharBuffer chars, int generation, int size) {
+        this.mRecords = records;
+        this.mChars = chars;
+        this.mGeneration = generation;
+        this.mSize = size;
+    }
+
+    /**
+     * Maps the given index file and checks its record table.
+     *
+     * @throws CorruptFileException if the file isn't a valid index file
+     */
+    static HistoryIndexFile open(File file) throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = randomAccessFile.getChannel();
+            long fileSize = channel.size();
+            if (fileSize < HEADER_BYTES || fileSize > Integer.MAX_VALUE) {
+                throw new CorruptFileException("Truncated history index " + file);
+            }
+            //the mapping stays valid after the channel is closed
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new CorruptFileException("Unknown history index format " + file);
+            }
+            int generation = buffer.getInt(8);
+            int size = buffer.getInt(12);
+            int charCount = buffer.getInt(16);
+            if (generation < 0 || size < 0 || charCount < 0
+                    || HEADER_BYTES + (long) size * RECORD_BYTES + 2L * charCount != fileSize) {
+                throw new CorruptFileException("Truncated history index " + file);
+            }
+
+            int charsStart = HEADER_BYTES + size * RECORD_BYTES;
+            buffer.position(HEADER_BYTES);
+            buffer.limit(charsStart);
+            ByteBuffer records = buffer.slice();
+            buffer.limit((int) fileSize);
+            buffer.position(charsStart);
+            CharBuffer chars = buffer.slice().asCharBuffer();
+
+            for (int i = 0; i < size; i++) {
+                int offset = i * RECORD_BYTES;
+                if (!isValidRange(records.getInt(offset), records.getInt(offset + 4), charCount)
+                        || !isValidRange(records.getInt(offset + 8), records.getInt(offset + 12), charCount)) {
+                    throw new CorruptFileException("Corrupt history index " + file);
+                }
+            }
+            return new HistoryIndexFile(records, chars, generation, size);
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+
+    /**
+     * Writes the given index as an index file.
+     *
+     * @param generation the log generation the index covers
+     */
+    static void write(DataOutputStream out, int generation, HistoryIndex index) throws IOException {
+        int[] positions = index.positionsInKeyOrder();
+        String[] keys = new String[positions.length];
+        String[] queries = new String[positions.length];
+        int charCount = 0;
+        for (int i = 0; i < positions.length; i++) {
+            keys[i] = index.getKey(positions[i]);
+            queries[i] = index.getQuery(positions[i]);
+            charCount += keys[i].length();
+            //most queries are typed in lower case, they share their key's chars
+            if (!queries[i].equals(keys[i])) {
+                charCount += queries[i].length();
+            }
+        }
+
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(generation);
+        out.writeInt(positions.length);
+        out.writeInt(charCount);
+        int charOffset = 0;
+        for (int i = 0; i < positions.length; i++) {
+            int keyStart = charOffset;
+            charOffset += keys[i].length();
+            int queryStart = keyStart;
+            if (!queries[i].equals(keys[i])) {
+                queryStart = charOffset;
+                charOffset += queries[i].length();
+            }
+            out.writeInt(keyStart);
+            out.writeInt(keys[i].length());
+            out.writeInt(queryStart);
+            out.writeInt(queries[i].length());
+            out.writeInt(index.getUseCount(positions[i]));
+            out.writeLong(index.getLastUsedMillis(positions[i]));
+        }
+        for (int i = 0; i < positions.length; i++) {
+            out.writeChars(keys[i]);
+            if (!queries[i].equals(keys[i])) {
+                out.writeChars(queries[i]);
+            }
+        }
+    }
+
+    /**
+     * Returns the log generation the index covers.
+     */
+    int getGeneration() {
+        return mGeneration;
+    }
+
+    int size() {
+        return mSize;
+    }
+
+    /**
+     * Compares the key at the given position to the given key, like
+     * {@link String#compareTo(String)}.
+     */
+    int compareKey(int position, String key) {
+        int start = mRecords.getInt(position * RECORD_BYTES);
+        int length = mRecords.getInt(position * RECORD_BYTES + 4);
+        int commonLength = Math.min(length, key.length());
+        for (int i = 0; i < commonLength; i++) {
+            char c = mChars.get(start + i);
+            if (c != key.charAt(i)) {
+                return c - key.charAt(i);
+            }
+        }
+        return length - key.length();
+    }
+
+    boolean keyStartsWith(int position, String prefix) {
+        int start = mRecords.getInt(position * RECORD_BYTES);
+        int length = mRecords.getInt(position * RECORD_BYTES + 4);
+        if (length < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (mChars.get(start + i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    String getKey(int position) {
+        return getString(mRecords.getInt(position * RECORD_BYTES),
+                mRecords.getInt(position * RECORD_BYTES + 4));
+    }
+
+    String getQuery(int position) {
+        return getString(mRecords.getInt(position * RECORD_BYTES + 8),
+                mRecords.getInt(position * RECORD_BYTES + 12));
+    }
+
+    int getUseCount(int position) {
+        return mRecords.getInt(position * RECORD_BYTES + 16);
+    }
+
+    long getLastUsedMillis(int position) {
+        return mRecords.getLong(position * RECORD_BYTES + 20);
+    }
+
+    private String getString(int start, int length) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = mChars.get(start + i);
+        }
+        return new String(chars);
+    }
+
+    private static boolean isValidRange(int start, int length, int charCount) {
+        return start >= 0 && length >= 0 && start <= charCount - length;
+    }
+}
@@ -0,0 +1,108 @@
+package com.walixiwa.floatingsearchview.suggestions.history;
+
+/**
+ * Copyright (C) 2015 Ari C.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import android.os.Parcel;
+
+import com.walixiwa.floatingsearchview.suggestions.model.SearchSuggestion;
+
+/**
+ * A suggestion for a query that was searched before.
+ * <p/>
+ * {@link com.walixiwa.floatingsearchview.suggestions.SearchSuggestionsAdapter}
+ * shows the history icon next to suggestions of this type.
+ */
+public class HistorySuggestion implements SearchSuggestion {
+
+    private final String mQuery;
+    private final int mUseCount;
+    private final long mLastUsedMillis;
+
+    public HistorySuggestion(String query, int useCount, long lastUsedMillis) {
+        this.mQuery = query;
+        this.mUseCount = useCount;
+        this.mLastUsedMillis = lastUsedMillis;
+    }
+
+    private HistorySuggestion(Parcel in) {
+        this.mQuery = in.readString();
+        this.mUseCount = in.readInt();
+        this.mLastUsedMillis = in.readLong();
+    }
+
+    @Override
+    public String getBody() {
+        return mQuery;
+    }
+
+    /**
+     * Returns how many times the query was searched.
+     */
+    public int getUseCount() {
+        return mUseCount;
+    }
+
+    /**
+     * Returns when the query was last searched, in milliseconds since the epoch.
+     */
+    public long getLastUsedMillis() {
+        return mLastUsedMillis;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof HistorySuggestion)) {
+            return false;
+        }
+        HistorySuggestion that = (HistorySuggestion) o;
+        return mUseCount == that.mUseCount
+                && mLastUsedMillis == that.mLastUsedMillis
+                && mQuery.equals(that.mQuery);
+    }
+
+    @Override
+    public int hashCode() {
+        return mQuery.hashCode();
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeString(mQuery);
+        dest.writeInt(mUseCount);
+        dest.writeLong(mLastUsedMillis);
+    }
+
+    public static final Creator<HistorySuggestion> CREATOR = new Creator<HistorySuggestion>() {
+        @Override
+        public HistorySuggestion createFromParcel(Parcel in) {
+            return new HistorySuggestion(in);
+        }
+
+        @Override
+        public HistorySuggestion[] newArray(int size) {
+            return new HistorySuggestion[size];
+        }
+    };
+}
@@ -0,0 +1,279 @@
+package com.walixiwa.floatingsearchview.suggestions.history;
+
+/**
+ * Copyright (C) 2015 Ari C.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import android.util.Log;
+
+import androidx.core.os.CancellationSignal;
+
+import com.walixiwa.floatingsearchview.suggestions.SuggestionProvider;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * A store of previously searched queries that suggests the ones
+ * starting with the current query.
+ * <p/>
+ * Lookups go through a {@link HistoryIndex}, so they take a couple of
+ * binary searches plus a scan of the matching range, rather than a scan
+ * of the whole history. The history can be set as the view's
+ * {@link SuggestionProvider}, or queried directly with
+ * {@link #getSuggestions(String)} and passed to
+ * {@link com.walixiwa.floatingsearchview.FloatingSearchView#swapSuggestions(List)}.
+ * <p/>
+ * A history created with a {@link SearchHistoryStore} is persisted. It is
+ * loaded on the store's executor the first time {@link #load()} is called or
+ * the history is changed, changes are applied and logged on that executor,
+ * and the store is compacted there once enough changes were logged. Until
+ * loading completes, lookups only see an empty history.
+ * <p/>
+ * This class is thread safe.
+ */
+public class SearchHistory implements SuggestionProvider {
+
+    private static final String TAG = "SearchHistory";
+
+    public static final int DEFAULT_MAX_ENTRIES = 50000;
+    public static final int DEFAULT_MAX_SUGGESTIONS = 10;
+
+    //the store is compacted once it logged more changes than this, and than there are entries
+    private static final int COMPACT_MIN_LOG_RECORDS = 512;
+
+    private HistoryIndex mIndex = new HistoryIndex();
+    private final int mMaxEntries;
+    private int mMaxSuggestions = DEFAULT_MAX_SUGGESTIONS;
+
+    private final SearchHistoryStore mStore;
+    private final Executor mStoreExecutor;
+    private boolean mLoadRequested;
+
+    //only accessed on the store executor
+    private boolean mStoreFailed;
+
+    public SearchHistory() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * @param maxEntries the maximum number of queries to keep, the least
+     *                   recently used ones are removed beyond it
+     */
+    public SearchHistory(int maxEntries) {
+        this(maxEntries, null, null);
+    }
+
+    /**
+     * @param maxEntries    the maximum number of queries to keep, the least
+     *                      recently used ones are removed beyond it
+     * @param store         the store to persist the history in
+     * @param storeExecutor the executor to do the store's I/O on. It must run
+     *                      tasks one at a time, in submission order.
+     */
+    public SearchHistory(int maxEntries, SearchHistoryStore store, Executor storeExecutor) {
+        this.mMaxEntries = maxEntries;
+        this.mStore = store;
+        this.mStoreExecutor = storeExecutor;
+    }
+
+    /**
+     * Sets the maximum number of suggestions returned for a query.
+     */
+    public synchronized void setMaxSuggestions(int maxSuggestions) {
+        this.mMaxSuggestions = maxSuggestions;
+    }
+
+    /**
+     * Starts loading the persisted history in the background, if it
+     * isn't loaded or loading yet. Does nothing for a history without store.
+     */
+    public void load() {
+        synchronized (this) {
+            if (mStore == null || mLoadRequested) {
+                return;
+            }
+            mLoadRequested = true;
+        }
+        mStoreExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+
+                HistoryIndex loadedIndex = new HistoryIndex();
+                try {
+                    mStore.load(loadedIndex);
+                } catch (IOException e) {
+                    Log.e(TAG, "Failed to load the search history", e);
+                    mStoreFailed = true;
+                }
+                synchronized (SearchHistory.this) {
+                    mIndex = loadedIndex;
+                    while (mIndex.size() > mMaxEntries) {
+                        mIndex.removeLeastRecentlyUsed();
+                    }
+                }
+                compactIfNeeded();
+            }
+        });
+    }
+
+    /**
+     * Records that the given query was searched now.
+     */
+    public void add(String query) {
+        add(query, System.currentTimeMillis());
+    }
+
+    /**
+     * Records that the given query was searched at the given time.
+     */
+    public void add(final String query, final long timeMillis) {
+        applyChange(new Runnable() {
+            @Override
+            public void run() {
+
+                String evictedQuery = null;
+                synchronized (SearchHistory.this) {
+                    if (mIndex.record(query, timeMillis) && mIndex.size() > mMaxEntries) {
+                        evictedQuery = mIndex.removeLeastRecentlyUsed();
+                    }
+                }
+                if (mStore != null && !mStoreFailed) {
+                    try {
+                        mStore.appendRecord(query, timeMillis);
+                        if (evictedQuery != null) {
+                            mStore.appendRemove(evictedQuery);
+                        }
+                    } catch (IOException e) {
+                        onStoreFailed(e);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Removes the given query from the history.
+     */
+    public void remove(final String query) {
+        applyChange(new Runnable() {
+            @Override
+            public void run() {
+
+                synchronized (SearchHistory.this) {
+                    mIndex.remove(query);
+                }
+                if (mStore != null && !mStoreFailed) {
+                    try {
+                        mStore.appendRemove(query);
+                    } catch (IOException e) {
+                        onStoreFailed(e);
+                    }
+                }
+            }
+        });
+    }
+
+    public void clear() {
+        applyChange(new Runnable() {
+            @Override
+            public void run() {
+
+                synchronized (SearchHistory.this) {
+                    mIndex.clear();
+                }
+                if (mStore != null && !mStoreFailed) {
+                    try {
+                        mStore.appendClear();
+                    } catch (IOException e) {
+                        onStoreFailed(e);
+                    }
+                }
+            }
+        });
+    }
+
+    public synchronized int size() {
+        return mIndex.size();
+    }
+
+    /**
+     * Returns the best ranked history suggestions that start with the
+     * given query, most used and then most recently used first.
+     *
+     * @param query the query typed so far, an empty query matches the whole history
+     */
+    public List<HistorySuggestion> getSuggestions(String query) {
+        synchronized (this) {
+            int[] positions = new int[mMaxSuggestions];
+            int count = mIndex.find(query, positions);
+            List<HistorySuggestion> suggestions = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int position = positions[i];
+                suggestions.add(new HistorySuggestion(mIndex.getQuery(position),
+                        mIndex.getUseCount(position), mIndex.getLastUsedMillis(position)));
+            }
+            return suggestions;
+        }
+    }
+
+    @Override
+    public void requestSuggestions(String query, CancellationSignal cancellationSignal, Callback callback) {
+        callback.onSuggestionsReady(getSuggestions(query));
+    }
+
+    //applies the change right away without store, or after loading on the store executor,
+    //which keeps the logged changes in the same order as they were applied
+    private void applyChange(final Runnable change) {
+        if (mStore == null) {
+            change.run();
+            return;
+        }
+        load();
+        mStoreExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                change.run();
+                compactIfNeeded();
+            }
+        });
+    }
+
+    private void compactIfNeeded() {
+        if (mStore == null || mStoreFailed) {
+            return;
+        }
+        HistoryIndex snapshot;
+        synchronized (this) {
+            if (mStore.getLogRecordCount() <= Math.max(COMPACT_MIN_LOG_RECORDS, mIndex.size())) {
+                return;
+            }
+            snapshot = mIndex.copy();
+        }
+        try {
+            mStore.compact(snapshot);
+        } catch (IOException e) {
+            onStoreFailed(e);
+        }
+    }
+
+    private void onStoreFailed(IOException e) {
+        Log.e(TAG, "Failed to persist the search history", e);
+        mStoreFailed = true;
+    }
+}
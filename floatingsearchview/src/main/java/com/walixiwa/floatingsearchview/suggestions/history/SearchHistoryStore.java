@@ -0,0 +1,286 @@
+package com.walixiwa.floatingsearchview.suggestions.history;
+
+/**
+ * Copyright (C) 2015 Ari C.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Persists a {@link HistoryIndex} in a directory as a compacted index
+ * file plus append-only logs of the changes made since.
+ * <p/>
+ * The index file is memory-mapped and searched in place, see
+ * {@link HistoryIndex}, so loading it only checks its record table and
+ * doesn't decode any query. Every change is appended to the current log,
+ * and the logs written since the last compaction are replayed on load,
+ * which only decodes the queries changed since. Logs are
+ * numbered by generation: compacting starts a new log generation, writes
+ * the index for it to a temporary file that is then renamed over the
+ * index file, and only then deletes the older logs. A crash at any point
+ * leaves an index file and logs that load to the same content.
+ * <p/>
+ * A corrupt index file resets the history, since the logs it covers are
+ * already gone. A corrupt log record is treated like a record that was
+ * cut short, the log is replayed up to it.
+ * <p/>
+ * All methods do blocking I/O and must not be called from the main
+ * thread. This class is not thread safe, calls must be serialized.
+ */
+public class SearchHistoryStore {
+
+    private static final String INDEX_FILE_NAME = "history.idx";
+    private static final String INDEX_TEMP_FILE_NAME = "history.idx.tmp";
+    private static final String LOG_FILE_PREFIX = "history-";
+    private static final String LOG_FILE_SUFFIX = ".log";
+
+    private static final byte OP_RECORD = 1;
+    private static final byte OP_REMOVE = 2;
+    private static final byte OP_CLEAR = 3;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final File mDirectory;
+
+    private int mGeneration;
+    private int mLogRecordCount;
+    private DataOutputStream mLog;
+
+    /**
+     * @param directory the directory to keep the history files in, it is
+     *                  created if it doesn't exist
+     */
+    public SearchHistoryStore(File directory) {
+        this.mDirectory = directory;
+    }
+
+    /**
+     * Loads the persisted history into the given, empty, index and
+     * opens the log for appending.
+     */
+    public void load(HistoryIndex index) throws IOException {
+        if (!mDirectory.isDirectory() && !mDirectory.mkdirs()) {
+            throw new IOException("Can't create " + mDirectory);
+        }
+
+        int indexGeneration;
+        try {
+            indexGeneration = readIndex(index);
+        } catch (HistoryIndexFile.CorruptFileException e) {
+            deleteAll();
+            indexGeneration = 0;
+        }
+        mGeneration = indexGeneration;
+        mLogRecordCount = 0;
+        for (int generation : logGenerations()) {
+            if (generation >= indexGeneration) {
+                mLogRecordCount += replayLog(logFile(generation), index);
+                mGeneration = Math.max(mGeneration, generation);
+            }
+        }
+        //append to a fresh log, the last one may end with a record cut short
+        mGeneration++;
+        openLog();
+    }
+
+    /**
+     * Returns the number of changes logged since the last compaction.
+     */
+    public int getLogRecordCount() {
+        return mLogRecordCount;
+    }
+
+    public void appendRecord(String query, long timeMillis) throws IOException {
+        mLog.writeByte(OP_RECORD);
+        mLog.writeLong(timeMillis);
+        writeString(mLog, query);
+        endLogRecord();
+    }
+
+    public void appendRemove(String query) throws IOException {
+        mLog.writeByte(OP_REMOVE);
+        writeString(mLog, query);
+        endLogRecord();
+    }
+
+    public void appendClear() throws IOException {
+        mLog.writeByte(OP_CLEAR);
+        endLogRecord();
+    }
+
+    /**
+     * Replaces the persisted history with the given index, which must
+     * contain every change appended so far, and drops the logs.
+     */
+    public void compact(HistoryIndex index) throws IOException {
+        int previousGeneration = mGeneration;
+        mGeneration++;
+        closeLog();
+        openLog();
+
+        File tempFile = new File(mDirectory, INDEX_TEMP_FILE_NAME);
+        FileOutputStream fileOut = new FileOutputStream(tempFile);
+        try {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut));
+            HistoryIndexFile.write(out, mGeneration, index);
+            out.flush();
+            fileOut.getFD().sync();
+        } finally {
+            fileOut.close();
+        }
+        if (!tempFile.renameTo(new File(mDirectory, INDEX_FILE_NAME))) {
+            throw new IOException("Can't replace the history index");
+        }
+
+        for (int generation : logGenerations()) {
+            if (generation <= previousGeneration) {
+                //noinspection ResultOfMethodCallIgnored
+                logFile(generation).delete();
+            }
+        }
+        mLogRecordCount = 0;
+    }
+
+    public void close() throws IOException {
+        closeLog();
+    }
+
+    //returns the log generation the index covers, 0 if there is no index
+    private int readIndex(HistoryIndex index) throws IOException {
+        File indexFile = new File(mDirectory, INDEX_FILE_NAME);
+        if (!indexFile.exists()) {
+            return 0;
+        }
+        HistoryIndexFile file = HistoryIndexFile.open(indexFile);
+        index.setFile(file);
+        return file.getGeneration();
+    }
+
+    //returns the number of records in the log
+    private int replayLog(File log, HistoryIndex index) throws IOException {
+        long maxStringLength = log.length();
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(log)));
+        int records = 0;
+        try {
+            while (true) {
+                byte op = in.readByte();
+                switch (op) {
+                    case OP_RECORD:
+                        long timeMillis = in.readLong();
+                        index.record(readString(in, maxStringLength), timeMillis);
+                        break;
+                    case OP_REMOVE:
+                        index.remove(readString(in, maxStringLength));
+                        break;
+                    case OP_CLEAR:
+                        index.clear();
+                        break;
+                    default:
+                        //a corrupt record, the rest of the log can't be read
+                        return records;
+                }
+                records++;
+            }
+        } catch (EOFException e) {
+            //end of the log, or a record that was cut short by process death or corrupted
+        } finally {
+            in.close();
+        }
+        return records;
+    }
+
+    private List<Integer> logGenerations() {
+        List<Integer> generations = new ArrayList<>();
+        String[] names = mDirectory.list();
+        if (names == null) {
+            return generations;
+        }
+        for (String name : names) {
+            if (name.startsWith(LOG_FILE_PREFIX) && name.endsWith(LOG_FILE_SUFFIX)) {
+                try {
+                    generations.add(Integer.parseInt(name.substring(LOG_FILE_PREFIX.length(),
+                            name.length() - LOG_FILE_SUFFIX.length())));
+                } catch (NumberFormatException e) {
+                    //not one of ours
+                }
+            }
+        }
+        Collections.sort(generations);
+        return generations;
+    }
+
+    //drops the index file and all logs
+    private void deleteAll() throws IOException {
+        File indexFile = new File(mDirectory, INDEX_FILE_NAME);
+        if (indexFile.exists() && !indexFile.delete()) {
+            throw new IOException("Can't delete the corrupt history index");
+        }
+        for (int generation : logGenerations()) {
+            //noinspection ResultOfMethodCallIgnored
+            logFile(generation).delete();
+        }
+    }
+
+    private File logFile(int generation) {
+        return new File(mDirectory, LOG_FILE_PREFIX + generation + LOG_FILE_SUFFIX);
+    }
+
+    private void openLog() throws IOException {
+        mLog = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(logFile(mGeneration), true)));
+    }
+
+    private void closeLog() throws IOException {
+        if (mLog != null) {
+            mLog.close();
+            mLog = null;
+        }
+    }
+
+    private void endLogRecord() throws IOException {
+        //flushed per record, so that it survives the process being killed
+        mLog.flush();
+        mLogRecordCount++;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in, long maxLength) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > maxLength) {
+            //a corrupt length, the rest of the log can't be read
+            throw new EOFException();
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, UTF_8);
+    }
+}
@@ -0,0 +1,48 @@
+package com.walixiwa.floatingsearchview.suggestions.model;
+
+/**
+ * Copyright (C) 2015 Ari C.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * A {@link SearchSuggestion} with ranges of its body that should be
+ * highlighted, for example the part that matched the query.
+ * <p/>
+ * Ranges are exposed through indexed accessors so that reading them
+ * doesn't allocate.
+ */
+public interface HighlightedSearchSuggestion extends SearchSuggestion {
+
+    /**
+     * Returns the number of ranges to highlight.
+     */
+    int getHighlightCount();
+
+    /**
+     * Returns the start of a range to highlight, inclusive.
+     *
+     * @param index the index of the range, from 0 inclusive to
+     *              {@link #getHighlightCount()} exclusive
+     */
+    int getHighlightStart(int index);
+
+    /**
+     * Returns the end of a range to highlight, exclusive.
+     *
+     * @param index the index of the range, from 0 inclusive to
+     *              {@link #getHighlightCount()} exclusive
+     */
+    int getHighlightEnd(int index);
+}
@@ -0,0 +1,36 @@
+package com.walixiwa.floatingsearchview.suggestions.model;
+
+/**
+ * Copyright (C) 2015 Ari C.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * A {@link SearchSuggestion} that exposes a stable identity.
+ * <p/>
+ * When suggestions implement this interface, incremental updates
+ * of the suggestions list use {@link #getSuggestionId()} to tell
+ * whether two suggestions represent the same item, instead of
+ * comparing their bodies.
+ */
+public interface IdentifiableSearchSuggestion extends SearchSuggestion {
+
+    /**
+     * Returns an id that uniquely and stably identifies
+     * the item represented by this suggestion.
+     *
+     * @return the id of this suggestion
+     */
+    long getSuggestionId();
+}
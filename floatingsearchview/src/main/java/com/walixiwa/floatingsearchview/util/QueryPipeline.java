@@ -0,0 +1,289 @@
+package com.walixiwa.floatingsearchview.util;
+
+/**
+ * Copyright (C) 2015 Ari C.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.VisibleForTesting;
+import androidx.core.os.CancellationSignal;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Turns the stream of query changes typed into the search bar into
+ * debounced query requests.
+ * <p/>
+ * A query is delivered to the {@link Listener} on the given executor
+ * only after no other change arrived for the debounce duration. Queries
+ * shorter than the minimum length, and queries equal to the last
+ * delivered query (ignoring leading and trailing whitespace) are not
+ * delivered. When a new query is delivered, the cancellation signal of
+ * the previous one is cancelled.
+ * <p/>
+ * All methods must be called from the main thread.
+ */
+public class QueryPipeline {
+
+    private static final String TAG = "QueryPipeline";
+
+    public static final long DEFAULT_DEBOUNCE_MILLIS = 300;
+
+    private final Scheduler mScheduler;
+    private final Executor mExecutor;
+    private final Listener mListener;
+    private OnQueryDispatchedListener mOnQueryDispatchedListener;
+
+    private long mDebounceMillis = DEFAULT_DEBOUNCE_MILLIS;
+    private int mMinQueryLength;
+
+    private String mPendingQuery;
+    private String mLastDeliveredQuery;
+    private CancellationSignal mInFlightSignal;
+
+    private final Runnable mDispatchRunnable = new Runnable() {
+        @Override
+        public void run() {
+            dispatch();
+        }
+    };
+
+    /**
+     * Interface for implementing a listener that receives
+     * the debounced queries.
+     */
+    public interface Listener {
+
+        /**
+         * Called on the pipeline's executor when the query settled.
+         *
+         * @param query              the query to get suggestions for
+         * @param cancellationSignal cancelled when this query is superseded by
+         *                           a newer one, work for it should then stop
+         */
+        void onQuery(String query, CancellationSignal cancellationSignal);
+    }
+
+    /**
+     * Interface for implementing a listener that is notified on the
+     * main thread when a query is handed to the executor.
+     */
+    public interface OnQueryDispatchedListener {
+
+        /**
+         * Called on the main thread right before the query is
+         * handed to the executor.
+         *
+         * @param query              the query that is being delivered
+         * @param cancellationSignal the signal that will be passed to the {@link Listener}
+         */
+        void onQueryDispatched(String query, CancellationSignal cancellationSignal);
+    }
+
+    /**
+     * Delays the delivery of queries on the main thread, stands in for a
+     * main thread {@link Handler} in local unit tests.
+     */
+    @VisibleForTesting
+    interface Scheduler {
+
+        void postDelayed(Runnable runnable, long delayMillis);
+
+        void removeCallbacks(Runnable runnable);
+    }
+
+    private static class MainThreadScheduler implements Scheduler {
+
+        private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+        @Override
+        public void postDelayed(Runnable runnable, long delayMillis) {
+            mMainHandler.postDelayed(runnable, delayMillis);
+        }
+
+        @Override
+        public void removeCallbacks(Runnable runnable) {
+            mMainHandler.removeCallbacks(runnable);
+        }
+    }
+
+    public QueryPipeline(Executor executor, Listener listener) {
+        this(executor, listener, new MainThreadScheduler());
+    }
+
+    @VisibleForTesting
+    QueryPipeline(Executor executor, Listener listener, Scheduler scheduler) {
+        this.mExecutor = executor;
+        this.mListener = listener;
+        this.mScheduler = scheduler;
+    }
+
+    /**
+     * Sets how long the query needs to stay unchanged before it's delivered.
+     *
+     * @param debounceMillis the debounce duration in milliseconds, 0 to
+     *                       deliver every change right away
+     */
+    public void setDebounce(long debounceMillis) {
+        this.mDebounceMillis = debounceMillis;
+    }
+
+    /**
+     * Sets the minimum length a query needs to have to be delivered. Leading
+     * and trailing whitespace doesn't count towards the length.
+     *
+     * @param minQueryLength the minimum query length
+     */
+    public void setMinQueryLength(int minQueryLength) {
+        this.mMinQueryLength = minQueryLength;
+    }
+
+    /**
+     * Returns whether the given query is long enough to be delivered.
+     *
+     * @param query the query to check
+     * @return true if the query, without leading and trailing whitespace,
+     * has at least the minimum query length
+     * @see #setMinQueryLength(int)
+     */
+    public boolean isLongEnough(String query) {
+        return query.trim().length() >= mMinQueryLength;
+    }
+
+    /**
+     * Sets the listener that will be notified on the main thread
+     * when a query is delivered.
+     *
+     * @param listener the listener, or null to remove the current one
+     */
+    public void setOnQueryDispatchedListener(OnQueryDispatchedListener listener) {
+        this.mOnQueryDispatchedListener = listener;
+    }
+
+    /**
+     * Called when the query has changed.
+     *
+     * @param query the new query
+     */
+    public void onQueryChanged(String query) {
+        mPendingQuery = query;
+        mScheduler.removeCallbacks(mDispatchRunnable);
+        if (mDebounceMillis > 0) {
+            mScheduler.postDelayed(mDispatchRunnable, mDebounceMillis);
+        } else {
+            dispatch();
+        }
+    }
+
+    /**
+     * Called when the given query was already answered by other means,
+     * for example from a cache. The pending and in-flight queries are
+     * dropped, and the given query counts as delivered so it won't be
+     * delivered again.
+     *
+     * @param query the query that was answered
+     */
+    public void onQueryAnswered(String query) {
+        mScheduler.removeCallbacks(mDispatchRunnable);
+        mPendingQuery = null;
+        mLastDeliveredQuery = query.trim();
+        cancelInFlight();
+    }
+
+    /**
+     * Drops the pending query, cancels the in-flight one and
+     * forgets the last delivered query.
+     */
+    public void cancel() {
+        mScheduler.removeCallbacks(mDispatchRunnable);
+        mPendingQuery = null;
+        mLastDeliveredQuery = null;
+        cancelInFlight();
+    }
+
+    /**
+     * Drops the pending query and hands over the in-flight one without
+     * cancelling it, for example to let its results be delivered to a
+     * new pipeline with {@link #resumeInFlight(String, CancellationSignal)}.
+     *
+     * @return the in-flight query's cancellation signal, or null if there is none
+     */
+    public CancellationSignal releaseInFlight() {
+        mScheduler.removeCallbacks(mDispatchRunnable);
+        mPendingQuery = null;
+        CancellationSignal signal = mInFlightSignal;
+        mInFlightSignal = null;
+        return signal;
+    }
+
+    /**
+     * Makes a query that was delivered by another pipeline, and released
+     * with {@link #releaseInFlight()}, the in-flight query of this one. It
+     * is then cancelled when a newer query is delivered, and the same query
+     * isn't delivered again.
+     *
+     * @param query              the in-flight query
+     * @param cancellationSignal the in-flight query's cancellation signal
+     */
+    public void resumeInFlight(String query, CancellationSignal cancellationSignal) {
+        cancelInFlight();
+        mLastDeliveredQuery = query.trim();
+        mInFlightSignal = cancellationSignal;
+    }
+
+    private void dispatch() {
+        final String query = mPendingQuery;
+        mPendingQuery = null;
+        if (query == null) {
+            return;
+        }
+
+        String trimmedQuery = query.trim();
+        if (trimmedQuery.length() < mMinQueryLength) {
+            mLastDeliveredQuery = null;
+            cancelInFlight();
+            return;
+        }
+        if (trimmedQuery.equals(mLastDeliveredQuery)) {
+            return;
+        }
+        mLastDeliveredQuery = trimmedQuery;
+
+        cancelInFlight();
+        final CancellationSignal signal = new CancellationSignal();
+        mInFlightSignal = signal;
+        if (mOnQueryDispatchedListener != null) {
+            mOnQueryDispatchedListener.onQueryDispatched(query, signal);
+        }
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+
+                if (!signal.isCanceled()) {
+                    mListener.onQuery(query, signal);
+                }
+            }
+        });
+    }
+
+    private void cancelInFlight() {
+        if (mInFlightSignal != null) {
+            mInFlightSignal.cancel();
+            mInFlightSignal = null;
+        }
+    }
+}
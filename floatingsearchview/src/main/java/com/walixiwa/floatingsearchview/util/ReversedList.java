@@ -0,0 +1,154 @@
+package com.walixiwa.floatingsearchview.util;
+
+/**
+ * Copyright (C) 2015 Ari C.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+/**
+ * A read-only view of a list in reverse order.
+ * <p/>
+ * Reversing a list this way takes constant time and neither copies nor
+ * modifies the given list, which can therefore be shared with other
+ * readers. Changes to the given list are visible through the view, so
+ * it should not be modified while the view is in use.
+ * <p/>
+ * The view implements {@link RandomAccess} only if the given list does.
+ * Otherwise it is iterated with the given list's own iterator, walking
+ * backwards from its end.
+ *
+ * @param <E> the type of the list's elements
+ */
+public abstract class ReversedList<E> extends AbstractList<E> {
+
+    private final List<? extends E> mList;
+
+    private ReversedList(List<? extends E> list) {
+        this.mList = list;
+    }
+
+    /**
+     * Returns the given list in reverse order. Reversing a list returned
+     * by this method returns the original list instead of a new view.
+     *
+     * @param list the list to reverse
+     * @param <E>  the type of the list's elements
+     * @return a view of the list in reverse order
+     */
+    @SuppressWarnings("unchecked")
+    public static <E> List<E> of(List<? extends E> list) {
+        if (list instanceof ReversedList) {
+            return (List<E>) ((ReversedList<? extends E>) list).mList;
+        }
+        if (list instanceof RandomAccess) {
+            return new RandomAccessReversedList<E>(list);
+        }
+        return new SequentialReversedList<E>(list);
+    }
+
+    @Override
+    public E get(int index) {
+        int size = mList.size();
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return mList.get(size - 1 - index);
+    }
+
+    @Override
+    public int size() {
+        return mList.size();
+    }
+
+    private static final class RandomAccessReversedList<E> extends ReversedList<E> implements RandomAccess {
+
+        RandomAccessReversedList(List<? extends E> list) {
+            super(list);
+        }
+    }
+
+    //indexing into a sequential list walks it, so iterate it with its own iterator instead
+    private static final class SequentialReversedList<E> extends ReversedList<E> {
+
+        SequentialReversedList(List<? extends E> list) {
+            super(list);
+        }
+
+        @Override
+        public ListIterator<E> listIterator(int index) {
+            final List<? extends E> list = super.mList;
+            int size = list.size();
+            if (index < 0 || index > size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            final ListIterator<? extends E> iterator = list.listIterator(size - index);
+            return new ListIterator<E>() {
+
+                @Override
+                public boolean hasNext() {
+                    return iterator.hasPrevious();
+                }
+
+                @Override
+                public E next() {
+                    if (!iterator.hasPrevious()) {
+                        throw new NoSuchElementException();
+                    }
+                    return iterator.previous();
+                }
+
+                @Override
+                public boolean hasPrevious() {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public E previous() {
+                    return iterator.next();
+                }
+
+                @Override
+                public int nextIndex() {
+                    return list.size() - iterator.nextIndex();
+                }
+
+                @Override
+                public int previousIndex() {
+                    return nextIndex() - 1;
+                }
+
+                @Override
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public void set(E e) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public void add(E e) {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.walixiwa.floatingsearchview.util;
+
+/**
+ * Copyright (C) 2015 Ari C.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.drawable.Drawable;
+import android.util.LruCache;
+
+import androidx.annotation.ColorInt;
+import androidx.annotation.DrawableRes;
+import androidx.core.content.res.ResourcesCompat;
+import androidx.core.graphics.drawable.DrawableCompat;
+
+/**
+ * A process wide cache of tinted drawable resources, so that screens with
+ * several search views, or that are recreated often, don't decode, wrap and
+ * tint the same icons again and again.
+ * <p/>
+ * The cache keeps the drawables' constant states, keyed by resource id,
+ * tint color and screen density, and hands out a new mutated drawable on
+ * every call. Callers can therefore change the returned drawable, for
+ * example re-tint it, without affecting the cache or other callers.
+ */
+public final class TintedDrawableCache {
+
+    private static final String TAG = "TintedDrawableCache";
+
+    private static final int MAX_ENTRIES = 64;
+
+    private static final LruCache<Key, Drawable.ConstantState> sCache = new LruCache<>(MAX_ENTRIES);
+
+    private TintedDrawableCache() {
+    }
+
+    /**
+     * Returns a new drawable of the given resource, tinted with the given color.
+     *
+     * @param resId the resource id of the drawable
+     * @param color the tint color
+     * @return a mutated drawable that is safe to change
+     * @throws Resources.NotFoundException
+     */
+    public static Drawable get(Context context, @DrawableRes int resId, @ColorInt int color)
+            throws Resources.NotFoundException {
+        Resources resources = context.getResources();
+        Key key = new Key(resId, color, resources.getDisplayMetrics().densityDpi);
+
+        Drawable.ConstantState state = sCache.get(key);
+        if (state == null) {
+            Drawable drawable = DrawableCompat.wrap(
+                    ResourcesCompat.getDrawable(resources, resId, null).mutate());
+            DrawableCompat.setTint(drawable, color);
+            state = drawable.getConstantState();
+            if (state == null) {
+                //can't be shared, the drawable is still private to this caller
+                return drawable;
+            }
+            sCache.put(key, state);
+        }
+        return state.newDrawable(resources).mutate();
+    }
+
+    /**
+     * Removes all cached drawables, for example when the
+     * application is asked to trim its memory.
+     */
+    public static void clear() {
+        sCache.evictAll();
+    }
+
+    private static final class Key {
+
+        private final int resId;
+        private final int color;
+        private final int densityDpi;
+
+        Key(int resId, int color, int densityDpi) {
+            this.resId = resId;
+            this.color = color;
+            this.densityDpi = densityDpi;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return resId == key.resId && color == key.color && densityDpi == key.densityDpi;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = resId;
+            result = 31 * result + color;
+            result = 31 * result + densityDpi;
+            return result;
+        }
+    }
+}
@@ -101,7 +101,8 @@ public class Util {
     }
 
     public static void setIconColor(ImageView iconHolder, int color) {
-        Drawable wrappedDrawable = DrawableCompat.wrap(iconHolder.getDrawable());
+        //mutate so that the tint doesn't leak into other users of the same drawable resource
+        Drawable wrappedDrawable = DrawableCompat.wrap(iconHolder.getDrawable().mutate());
         DrawableCompat.setTint(wrappedDrawable, color);
         iconHolder.setImageDrawable(wrappedDrawable);
         iconHolder.invalidate();
@@ -35,12 +35,14 @@ import android.view.animation.LinearInterpolator;
 import android.widget.ImageView;
 import android.widget.LinearLayout;
 
+import androidx.annotation.VisibleForTesting;
 import androidx.appcompat.view.SupportMenuInflater;
 import androidx.appcompat.view.menu.MenuBuilder;
 import androidx.appcompat.view.menu.MenuItemImpl;
 
 import com.walixiwa.floatingsearchview.R;
 import com.walixiwa.floatingsearchview.util.MyMenuPopupHelper;
+import com.walixiwa.floatingsearchview.util.TintedDrawableCache;
 import com.walixiwa.floatingsearchview.util.Util;
 import com.bartoszlipinski.viewpropertyobjectanimator.ViewPropertyObjectAnimator;
 
@@ -61,6 +63,13 @@ public class MenuView extends LinearLayout {
 
     private final float ACTION_DIMENSION_PX;
 
+    private static final Comparator<MenuItemImpl> MENU_ITEM_ORDER = new Comparator<MenuItemImpl>() {
+        @Override
+        public int compare(MenuItemImpl lhs, MenuItemImpl rhs) {
+            return ((Integer) lhs.getOrder()).compareTo(rhs.getOrder());
+        }
+    };
+
     private int mMenu = -1;
     private MenuBuilder mMenuBuilder;
     private SupportMenuInflater mMenuInflater;
@@ -103,11 +112,19 @@ public class MenuView extends LinearLayout {
 
     private void init() {
         mMenuBuilder = new MenuBuilder(getContext());
-        mMenuPopupHelper = new MyMenuPopupHelper(getContext(), mMenuBuilder, this);
         mActionIconColor = Util.getColor(getContext(), R.color.gray_active_icon);
         mOverflowIconColor = Util.getColor(getContext(), R.color.gray_active_icon);
     }
 
+    //the popup is only created when the overflow menu is first opened,
+    //since many menus are never opened
+    private MyMenuPopupHelper getMenuPopupHelper() {
+        if (mMenuPopupHelper == null) {
+            mMenuPopupHelper = new MyMenuPopupHelper(getContext(), mMenuBuilder, this);
+        }
+        return mMenuPopupHelper;
+    }
+
     public void setActionIconColor(int actionColor) {
         this.mActionIconColor = actionColor;
         refreshColors();
@@ -118,6 +135,19 @@ public class MenuView extends LinearLayout {
         refreshColors();
     }
 
+    /**
+     * Sets the action and overflow icons' colors, re-tinting
+     * the icons only once and only if a color changed.
+     */
+    public void setColors(int actionColor, int overflowColor) {
+        if (this.mActionIconColor == actionColor && this.mOverflowIconColor == overflowColor) {
+            return;
+        }
+        this.mActionIconColor = actionColor;
+        this.mOverflowIconColor = overflowColor;
+        refreshColors();
+    }
+
     private void refreshColors() {
         for (int i = 0; i < getChildCount(); i++) {
             Util.setIconColor(((ImageView) getChildAt(i)), mActionIconColor);
@@ -160,7 +190,7 @@ public class MenuView extends LinearLayout {
         mActionItems = new ArrayList<>();
         mMenuItems = new ArrayList<>();
         mMenuBuilder = new MenuBuilder(getContext());
-        mMenuPopupHelper = new MyMenuPopupHelper(getContext(), mMenuBuilder, this);
+        mMenuPopupHelper = null;
 
         //clean view and re-inflate
         removeAllViews();
@@ -169,73 +199,44 @@ public class MenuView extends LinearLayout {
         mMenuItems = mMenuBuilder.getActionItems();
         mMenuItems.addAll(mMenuBuilder.getNonActionItems());
 
-        Collections.sort(mMenuItems, new Comparator<MenuItemImpl>() {
-            @Override
-            public int compare(MenuItemImpl lhs, MenuItemImpl rhs) {
-                return ((Integer) lhs.getOrder()).compareTo(rhs.getOrder());
-            }
-        });
-
-        List<MenuItemImpl> localActionItems = filter(mMenuItems, new MenuItemImplPredicate() {
-            @Override
-            public boolean apply(MenuItemImpl menuItem) {
-                return menuItem.requiresActionButton() || menuItem.requestsActionButton();
-            }
-        });
-
-        int availItemRoom = availWidth / (int) ACTION_DIMENSION_PX;
-
-        //determine if to show overflow menu
-        boolean addOverflowAtTheEnd = false;
-        if (((localActionItems.size() < mMenuItems.size()) || availItemRoom < localActionItems.size())) {
-            addOverflowAtTheEnd = true;
-            availItemRoom--;
-        }
+        List<MenuItemImpl> shownActionItems = new ArrayList<>();
+        boolean addOverflowAtTheEnd = partitionMenuItems(mMenuItems,
+                availWidth / (int) ACTION_DIMENSION_PX, shownActionItems);
 
         ArrayList<Integer> actionItemsIds = new ArrayList<>();
-        if (availItemRoom > 0) {
-            for (int i = 0; i < localActionItems.size(); i++) {
+        for (int i = 0; i < shownActionItems.size(); i++) {
 
-                final MenuItemImpl menuItem = localActionItems.get(i);
-                if (menuItem.getIcon() != null) {
+            final MenuItemImpl menuItem = shownActionItems.get(i);
+            ImageView action = createActionView();
+            action.setImageDrawable(menuItem.getIcon());
+            Util.setIconColor(action, mActionIconColor);
+            addView(action);
+            mActionItems.add(menuItem);
+            actionItemsIds.add(menuItem.getItemId());
 
-                    ImageView action = createActionView();
-                    action.setImageDrawable(menuItem.getIcon());
-                    Util.setIconColor(action, mActionIconColor);
-                    addView(action);
-                    mActionItems.add(menuItem);
-                    actionItemsIds.add(menuItem.getItemId());
-
-                    action.setOnClickListener(new OnClickListener() {
-                        @Override
-                        public void onClick(View v) {
-
-                            if (mMenuCallback != null) {
-                                mMenuCallback.onMenuItemSelected(mMenuBuilder, menuItem);
-                            }
-                        }
-                    });
+            action.setOnClickListener(new OnClickListener() {
+                @Override
+                public void onClick(View v) {
 
-                    availItemRoom--;
-                    if (availItemRoom == 0) {
-                        break;
+                    if (mMenuCallback != null) {
+                        mMenuCallback.onMenuItemSelected(mMenuBuilder, menuItem);
                     }
                 }
-            }
+            });
         }
 
         mHasOverflow = addOverflowAtTheEnd;
         if (addOverflowAtTheEnd) {
 
             ImageView overflowAction = getOverflowActionView();
-            overflowAction.setImageResource(R.drawable.ic_more_vert_black_24dp);
-            Util.setIconColor(overflowAction, mOverflowIconColor);
+            overflowAction.setImageDrawable(TintedDrawableCache.get(getContext(),
+                    R.drawable.ic_more_vert_black_24dp, mOverflowIconColor));
             addView(overflowAction);
 
             overflowAction.setOnClickListener(new OnClickListener() {
                 @Override
                 public void onClick(View v) {
-                    mMenuPopupHelper.show();
+                    getMenuPopupHelper().show();
                 }
             });
 
@@ -254,6 +255,53 @@ public class MenuView extends LinearLayout {
         }
     }
 
+    /**
+     * Sorts the given menu items by their order, and decides which of them
+     * are shown as actions and whether an overflow menu is needed, given
+     * the room for a number of actions.
+     * <p/>
+     * Only items flagged with android:showAsAction="ifRoom" or
+     * android:showAsAction="always" that have an icon are shown as actions.
+     * If not all items fit, one action's room is taken by the overflow menu.
+     *
+     * @param menuItems        the menu items, sorted in place
+     * @param availItemRoom    the number of actions there is room for
+     * @param outShownAsAction receives the items that are shown as actions, in order
+     * @return true if an overflow menu is needed
+     */
+    @VisibleForTesting
+    static boolean partitionMenuItems(List<MenuItemImpl> menuItems, int availItemRoom,
+                                             List<MenuItemImpl> outShownAsAction) {
+        Collections.sort(menuItems, MENU_ITEM_ORDER);
+
+        int actionItemCount = 0;
+        for (int i = 0; i < menuItems.size(); i++) {
+            if (isActionItem(menuItems.get(i))) {
+                actionItemCount++;
+            }
+        }
+
+        //determine if to show overflow menu
+        boolean addOverflowAtTheEnd = false;
+        if (actionItemCount < menuItems.size() || availItemRoom < actionItemCount) {
+            addOverflowAtTheEnd = true;
+            availItemRoom--;
+        }
+
+        for (int i = 0; i < menuItems.size() && availItemRoom > 0; i++) {
+            MenuItemImpl menuItem = menuItems.get(i);
+            if (isActionItem(menuItem) && menuItem.getIcon() != null) {
+                outShownAsAction.add(menuItem);
+                availItemRoom--;
+            }
+        }
+        return addOverflowAtTheEnd;
+    }
+
+    private static boolean isActionItem(MenuItemImpl menuItem) {
+        return menuItem.requiresActionButton() || menuItem.requestsActionButton();
+    }
+
     public int getVisibleWidth() {
         return mVisibleWidth;
     }
@@ -0,0 +1,160 @@
+package com.walixiwa.floatingsearchview.suggestions;
+
+/**
+ * Copyright (C) 2015 Ari C.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+import androidx.recyclerview.widget.DiffUtil;
+
+import com.walixiwa.floatingsearchview.suggestions.model.SearchSuggestion;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests of {@link AsyncSuggestionsDiffer}.
+ */
+public class AsyncSuggestionsDifferTest {
+
+    private static final List<SearchSuggestion> OLD = suggestions("a", "b");
+    private static final List<SearchSuggestion> FIRST = suggestions("a", "b", "c");
+    private static final List<SearchSuggestion> SECOND = suggestions("b", "c", "d");
+
+    private final List<Runnable> mBackgroundTasks = new ArrayList<>();
+    private final List<Runnable> mMainThreadTasks = new ArrayList<>();
+    private final List<List<? extends SearchSuggestion>> mDelivered = new ArrayList<>();
+
+    private final Executor mDirectExecutor = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    private final Executor mBackgroundExecutor = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            mBackgroundTasks.add(command);
+        }
+    };
+
+    private final Executor mMainThreadExecutor = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            mMainThreadTasks.add(command);
+        }
+    };
+
+    private final AsyncSuggestionsDiffer.Callback mCallback = new AsyncSuggestionsDiffer.Callback() {
+        @Override
+        public void onDiffReady(List<? extends SearchSuggestion> newSuggestions,
+                                DiffUtil.DiffResult diffResult) {
+            mDelivered.add(newSuggestions);
+        }
+    };
+
+    @Test
+    public void submit_deliversTheSubmittedListOnTheMainThread() {
+        AsyncSuggestionsDiffer differ = new AsyncSuggestionsDiffer(mDirectExecutor, mMainThreadExecutor);
+        differ.submit(OLD, FIRST, mCallback);
+
+        assertTrue(mDelivered.isEmpty());
+        runAll(mMainThreadTasks);
+        assertEquals(1, mDelivered.size());
+        assertSame(FIRST, mDelivered.get(0));
+    }
+
+    @Test
+    public void submit_neverDeliversSupersededSubmissions() {
+        AsyncSuggestionsDiffer differ = new AsyncSuggestionsDiffer(mBackgroundExecutor, mMainThreadExecutor);
+        int first = differ.submit(OLD, FIRST, mCallback);
+        int second = differ.submit(OLD, SECOND, mCallback);
+        assertTrue(second > first);
+
+        runAll(mBackgroundTasks);
+        //the superseded diff isn't even computed
+        assertEquals(1, mMainThreadTasks.size());
+        runAll(mMainThreadTasks);
+        assertEquals(1, mDelivered.size());
+        assertSame(SECOND, mDelivered.get(0));
+    }
+
+    @Test
+    public void submit_dropsResultsComputedBeforeBeingSuperseded() {
+        AsyncSuggestionsDiffer differ = new AsyncSuggestionsDiffer(mDirectExecutor, mMainThreadExecutor);
+        differ.submit(OLD, FIRST, mCallback);
+        differ.submit(OLD, SECOND, mCallback);
+
+        //both results are posted, only the latest one reaches the callback
+        assertEquals(2, mMainThreadTasks.size());
+        runAll(mMainThreadTasks);
+        assertEquals(1, mDelivered.size());
+        assertSame(SECOND, mDelivered.get(0));
+    }
+
+    @Test
+    public void cancel_dropsTheInFlightResult() {
+        AsyncSuggestionsDiffer differ = new AsyncSuggestionsDiffer(mDirectExecutor, mMainThreadExecutor);
+        int generation = differ.submit(OLD, FIRST, mCallback);
+        differ.cancel();
+
+        assertTrue(differ.getGeneration() > generation);
+        runAll(mMainThreadTasks);
+        assertTrue(mDelivered.isEmpty());
+    }
+
+    @Test
+    public void cancel_skipsDiffsThatHaveNotStarted() {
+        AsyncSuggestionsDiffer differ = new AsyncSuggestionsDiffer(mBackgroundExecutor, mMainThreadExecutor);
+        differ.submit(OLD, FIRST, mCallback);
+        differ.cancel();
+
+        runAll(mBackgroundTasks);
+        assertTrue(mMainThreadTasks.isEmpty());
+        assertTrue(mDelivered.isEmpty());
+    }
+
+    @Test
+    public void submit_afterCancelIsDelivered() {
+        AsyncSuggestionsDiffer differ = new AsyncSuggestionsDiffer(mDirectExecutor, mMainThreadExecutor);
+        differ.submit(OLD, FIRST, mCallback);
+        differ.cancel();
+        differ.submit(OLD, SECOND, mCallback);
+
+        runAll(mMainThreadTasks);
+        assertEquals(1, mDelivered.size());
+        assertSame(SECOND, mDelivered.get(0));
+    }
+
+    private static void runAll(List<Runnable> tasks) {
+        List<Runnable> pending = new ArrayList<>(tasks);
+        tasks.clear();
+        for (Runnable task : pending) {
+            task.run();
+        }
+    }
+
+    private static List<SearchSuggestion> suggestions(String... bodies) {
+        List<SearchSuggestion> suggestions = new ArrayList<>();
+        for (String body : bodies) {
+            suggestions.add(new TestSuggestion(body, body.hashCode()));
+        }
+        return suggestions;
+    }
+}
@@ -0,0 +1,114 @@
+package com.walixiwa.floatingsearchview.suggestions;
+
+/**
+ * Copyright (C) 2015 Ari C.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import com.walixiwa.floatingsearchview.util.ReversedList;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests of {@link CompactSuggestionList}.
+ */
+public class CompactSuggestionListTest {
+
+    @Test
+    public void builder_growsBeyondTheExpectedSize() {
+        List<String> bodies = new ArrayList<>();
+        CompactSuggestionList.Builder builder = new CompactSuggestionList.Builder(1);
+        for (int i = 0; i < 1000; i++) {
+            //empty bodies and bodies longer than the default body length included
+            StringBuilder body = new StringBuilder();
+            for (int j = 0; j < i % 40; j++) {
+                body.append((char) ('a' + (i + j) % 26));
+            }
+            bodies.add(body.toString());
+            builder.add(body, 1000L + i);
+        }
+        CompactSuggestionList list = builder.build();
+
+        assertEquals(bodies.size(), list.size());
+        for (int i = 0; i < bodies.size(); i++) {
+            assertEquals(bodies.get(i), list.getBody(i));
+            assertEquals(bodies.get(i).length(), list.getBodyLength(i));
+            assertEquals(1000L + i, list.getId(i));
+        }
+    }
+
+    @Test
+    public void builder_buildsAnEmptyList() {
+        assertEquals(0, new CompactSuggestionList.Builder(0).build().size());
+        assertTrue(new CompactSuggestionList.Builder().build().isEmpty());
+    }
+
+    @Test
+    public void get_createsRowsWithTheBodyAndId() {
+        CompactSuggestionList list = new CompactSuggestionList.Builder()
+                .add("java", 7)
+                .add("kotlin", 8)
+                .build();
+
+        CompactSuggestion row = list.get(1);
+        assertEquals("kotlin", row.getBody());
+        assertEquals(8, row.getSuggestionId());
+        //the body is created once
+        assertSame(row.getBody(), row.getBody());
+    }
+
+    @Test
+    public void getBody_reusesTheGivenView() {
+        CompactSuggestionList list = new CompactSuggestionList.Builder()
+                .add("java", 1)
+                .add("kotlin", 2)
+                .build();
+
+        CompactSuggestionList.BodyView view = list.getBody(0, null);
+        assertEquals("java", view.toString());
+        assertSame(view, list.getBody(1, view));
+        assertEquals(6, view.length());
+        assertEquals('k', view.charAt(0));
+        assertEquals("otl", view.subSequence(1, 4).toString());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void bodyView_rejectsCharsOutsideTheBody() {
+        CompactSuggestionList list = new CompactSuggestionList.Builder()
+                .add("java", 1)
+                .add("kotlin", 2)
+                .build();
+        //the next body's chars are in the same array, but not part of this body
+        list.getBody(0, null).charAt(4);
+    }
+
+    @Test
+    public void unwrap_findsTheListBehindAReversedView() {
+        CompactSuggestionList list = new CompactSuggestionList.Builder().add("a", 1).build();
+
+        assertSame(list, CompactSuggestionList.unwrap(list));
+        assertSame(list, CompactSuggestionList.unwrap(ReversedList.of(list)));
+        assertNull(CompactSuggestionList.unwrap(new ArrayList<>(list)));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void get_rejectsIndicesOutOfRange() {
+        new CompactSuggestionList.Builder().add("java", 1).build().get(1);
+    }
+}
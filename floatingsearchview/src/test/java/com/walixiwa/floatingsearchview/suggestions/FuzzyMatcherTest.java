@@ -0,0 +1,223 @@
+package com.walixiwa.floatingsearchview.suggestions;
+
+/**
+ * Copyright (C) 2015 Ari C.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import com.walixiwa.floatingsearchview.suggestions.model.SearchSuggestion;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests of {@link FuzzyMatcher}.
+ */
+public class FuzzyMatcherTest {
+
+    @Test
+    public void maxDistanceFor_growsWithQueryLength() {
+        FuzzyMatcher matcher = new FuzzyMatcher();
+        assertEquals(0, matcher.maxDistanceFor(2));
+        assertEquals(1, matcher.maxDistanceFor(3));
+        assertEquals(1, matcher.maxDistanceFor(5));
+        assertEquals(2, matcher.maxDistanceFor(6));
+        assertEquals(1, new FuzzyMatcher(1).maxDistanceFor(10));
+    }
+
+    @Test
+    public void match_findsExactPrefixOfAWord() {
+        FuzzyMatcher matcher = new FuzzyMatcher();
+        assertTrue(matcher.match("Prog", "java programming"));
+        assertEquals(0, matcher.getDistance());
+        assertEquals(5, matcher.getMatchStart());
+        assertEquals(9, matcher.getMatchEnd());
+    }
+
+    @Test
+    public void match_toleratesTyposUpToTheMaxDistance() {
+        FuzzyMatcher matcher = new FuzzyMatcher();
+        //a deleted letter
+        assertTrue(matcher.match("progrm", "programming"));
+        assertEquals(1, matcher.getDistance());
+        assertEquals(0, matcher.getMatchStart());
+        //two substituted letters
+        assertTrue(matcher.match("prigrem", "program"));
+        assertEquals(2, matcher.getDistance());
+        //three typos are too many
+        assertFalse(matcher.match("prxgxamx", "programming"));
+    }
+
+    @Test
+    public void match_toleratesNoTyposInShortQueries() {
+        FuzzyMatcher matcher = new FuzzyMatcher();
+        assertTrue(matcher.match("ja", "java"));
+        assertFalse(matcher.match("jx", "java"));
+        assertFalse(matcher.match("", "java"));
+    }
+
+    @Test
+    public void match_onlyMatchesAtTheStartOfWords() {
+        FuzzyMatcher matcher = new FuzzyMatcher();
+        assertFalse(matcher.match("gram", "program"));
+        assertTrue(matcher.match("gram", "pro-gram"));
+        assertEquals(4, matcher.getMatchStart());
+    }
+
+    @Test
+    public void match_prefersTheClosestWord() {
+        FuzzyMatcher matcher = new FuzzyMatcher();
+        assertTrue(matcher.match("kotlin", "kitlin kotlin"));
+        assertEquals(0, matcher.getDistance());
+        assertEquals(7, matcher.getMatchStart());
+        assertEquals(13, matcher.getMatchEnd());
+    }
+
+    @Test
+    public void matchAll_ranksByDistanceThenStartThenLength() {
+        List<SearchSuggestion> candidates = suggestions(
+                "learn programming",
+                "programming languages",
+                "progrem",
+                "programming",
+                "kotlin");
+
+        List<FuzzyMatchSuggestion> matches = new FuzzyMatcher().matchAll("program", candidates, 10);
+        assertEquals(4, matches.size());
+        assertEquals("programming", matches.get(0).getBody());
+        assertEquals("programming languages", matches.get(1).getBody());
+        assertEquals("learn programming", matches.get(2).getBody());
+        assertEquals("progrem", matches.get(3).getBody());
+        assertEquals(1, matches.get(3).getDistance());
+
+        FuzzyMatchSuggestion match = matches.get(2);
+        assertSame(candidates.get(0), match.getSuggestion());
+        assertEquals(1, match.getHighlightCount());
+        assertEquals(6, match.getHighlightStart(0));
+        assertEquals(13, match.getHighlightEnd(0));
+    }
+
+    @Test
+    public void matchAll_keepsTheBestMatchesWhenLimited() {
+        List<SearchSuggestion> candidates = suggestions("javx", "java script", "java", "javas");
+
+        List<FuzzyMatchSuggestion> matches = new FuzzyMatcher().matchAll("java", candidates, 2);
+        assertEquals(2, matches.size());
+        assertEquals("java", matches.get(0).getBody());
+        assertEquals("javas", matches.get(1).getBody());
+        assertTrue(new FuzzyMatcher().matchAll("java", candidates, 0).isEmpty());
+    }
+
+    @Test
+    public void matchAll_matchesCompactListsLikeOtherLists() {
+        List<SearchSuggestion> candidates = suggestions(
+                "android studio", "andriod", "android", "angular", "an droid");
+        CompactSuggestionList.Builder builder = new CompactSuggestionList.Builder();
+        for (int i = 0; i < candidates.size(); i++) {
+            builder.add(candidates.get(i).getBody(), i);
+        }
+        CompactSuggestionList compactCandidates = builder.build();
+
+        FuzzyMatcher matcher = new FuzzyMatcher();
+        List<FuzzyMatchSuggestion> expected = matcher.matchAll("androd", candidates, 10);
+        List<FuzzyMatchSuggestion> actual = matcher.matchAll("androd", compactCandidates, 10);
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getBody(), actual.get(i).getBody());
+            assertEquals(expected.get(i).getDistance(), actual.get(i).getDistance());
+            assertEquals(expected.get(i).getHighlightStart(0), actual.get(i).getHighlightStart(0));
+            assertEquals(expected.get(i).getHighlightEnd(0), actual.get(i).getHighlightEnd(0));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void matchAll_rejectsNegativeLimits() {
+        new FuzzyMatcher().matchAll("java", suggestions("java"), -1);
+    }
+
+    @Test
+    public void matchAll_ranksIndexedCandidatesLikeTheList() {
+        List<SearchSuggestion> candidates = suggestions(
+                "learn programming",
+                "programming languages",
+                "progrem",
+                "programming",
+                "kotlin",
+                "pro-gram",
+                "");
+        FuzzyMatchIndex index = new FuzzyMatchIndex(candidates);
+
+        FuzzyMatcher matcher = new FuzzyMatcher();
+        assertSameMatches(matcher.matchAll("program", candidates, 10),
+                matcher.matchAll("program", index, 10));
+        assertSameMatches(matcher.matchAll("gram", candidates, 10),
+                matcher.matchAll("gram", index, 10));
+        assertSame(candidates.get(0), matcher.matchAll("learn", index, 10).get(0).getSuggestion());
+        assertTrue(matcher.matchAll("", index, 10).isEmpty());
+        assertTrue(matcher.matchAll("program", index, 0).isEmpty());
+    }
+
+    @Test
+    public void matchAll_matchesAnIndexLikeTheListItWasBuiltFrom() {
+        Random random = new Random(7);
+        String[] syllables = {"pro", "gram", "ja", "va", "kot", "lin", "and", "roid", "-", " "};
+        CompactSuggestionList.Builder builder = new CompactSuggestionList.Builder();
+        List<SearchSuggestion> candidates = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            StringBuilder body = new StringBuilder();
+            int parts = random.nextInt(8);
+            for (int p = 0; p < parts; p++) {
+                String syllable = syllables[random.nextInt(syllables.length)];
+                body.append(random.nextBoolean() ? syllable : syllable.toUpperCase());
+            }
+            candidates.add(new TestSuggestion(body.toString(), i));
+            builder.add(body, i);
+        }
+        FuzzyMatchIndex index = new FuzzyMatchIndex(candidates);
+        FuzzyMatchIndex compactIndex = new FuzzyMatchIndex(builder.build());
+
+        FuzzyMatcher matcher = new FuzzyMatcher();
+        String[] queries = {"j", "ja", "jav", "jva", "progrm", "programing", "kotlinandroid",
+                "roidpro", "x", "gram java", "ANDRO"};
+        for (String query : queries) {
+            List<FuzzyMatchSuggestion> expected = matcher.matchAll(query, candidates, 50);
+            assertSameMatches(expected, matcher.matchAll(query, index, 50));
+            assertSameMatches(expected, matcher.matchAll(query, compactIndex, 50));
+        }
+    }
+
+    private static void assertSameMatches(List<FuzzyMatchSuggestion> expected,
+                                          List<FuzzyMatchSuggestion> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getBody(), actual.get(i).getBody());
+            assertEquals(expected.get(i).getDistance(), actual.get(i).getDistance());
+            assertEquals(expected.get(i).getHighlightStart(0), actual.get(i).getHighlightStart(0));
+            assertEquals(expected.get(i).getHighlightEnd(0), actual.get(i).getHighlightEnd(0));
+        }
+    }
+
+    private static List<SearchSuggestion> suggestions(String... bodies) {
+        List<SearchSuggestion> suggestions = new ArrayList<>();
+        for (String body : bodies) {
+            suggestions.add(new TestSuggestion(body, suggestions.size()));
+        }
+        return suggestions;
+    }
+}
@@ -0,0 +1,260 @@
+package com.walixiwa.floatingsearchview.suggestions;
+
+/**
+ * Copyright (C) 2015 Ari C.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import androidx.core.os.CancellationSignal;
+
+import com.walixiwa.floatingsearchview.suggestions.model.SearchSuggestion;
+import com.walixiwa.floatingsearchview.util.ReversedList;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests of {@link PagedSuggestionList}. Pages are loaded right
+ * away, and loaded pages are handed to the list when the test runs the
+ * queued main thread tasks.
+ */
+public class PagedSuggestionListTest {
+
+    private static final int SIZE = 1000;
+    private static final int PAGE_SIZE = 10;
+
+    private final FakeSource mSource = new FakeSource();
+    private final List<Runnable> mMainThreadTasks = new ArrayList<>();
+    private final List<int[]> mLoadedRanges = new ArrayList<>();
+
+    private final Executor mDirectExecutor = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    private final Executor mMainThreadExecutor = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            mMainThreadTasks.add(command);
+        }
+    };
+
+    private PagedSuggestionList mList;
+
+    @Before
+    public void setUp() {
+        mList = newList(0, 3);
+    }
+
+    @Test
+    public void get_returnsPlaceholderAndLoadsThePage() {
+        assertNull(mList.get(25));
+        assertEquals(1, mSource.mLoads.size());
+        assertEquals(20, mSource.mLoads.get(0).mStart);
+        assertEquals(PAGE_SIZE, mSource.mLoads.get(0).mCount);
+
+        mSource.complete(0);
+        runMainThreadTasks();
+        assertEquals("row 25", mList.get(25).getBody());
+        assertEquals(1, mLoadedRanges.size());
+        assertEquals(20, mLoadedRanges.get(0)[0]);
+        assertEquals(PAGE_SIZE, mLoadedRanges.get(0)[1]);
+    }
+
+    @Test
+    public void get_loadsEachPageOnce() {
+        mList.get(20);
+        mList.get(21);
+        assertEquals(1, mSource.mLoads.size());
+
+        mSource.complete(0);
+        runMainThreadTasks();
+        mList.get(22);
+        assertEquals(1, mSource.mLoads.size());
+    }
+
+    @Test
+    public void get_prefetchesPagesWithinTheDistance() {
+        PagedSuggestionList list = newList(15, 3);
+        list.get(50);
+
+        //rows 35 to 65 are in pages 3 to 6
+        assertEquals(4, mSource.mLoads.size());
+        assertEquals(30, mSource.mLoads.get(0).mStart);
+        assertEquals(60, mSource.mLoads.get(3).mStart);
+    }
+
+    @Test
+    public void get_loadsAShorterLastPage() {
+        PagedSuggestionList list = new PagedSuggestionList.Builder(mSource, 25, mDirectExecutor)
+                .setPageSize(PAGE_SIZE)
+                .setPrefetchDistance(0)
+                .setMainThreadExecutor(mMainThreadExecutor)
+                .build();
+        list.get(24);
+        assertEquals(20, mSource.mLoads.get(0).mStart);
+        assertEquals(5, mSource.mLoads.get(0).mCount);
+    }
+
+    @Test
+    public void loadedPages_beyondMaxPagesAreEvicted() {
+        for (int page = 0; page < 4; page++) {
+            mList.get(page * PAGE_SIZE);
+            mSource.complete(page);
+            runMainThreadTasks();
+        }
+        //page 0 is the least recently used one
+        assertNull(mList.get(0));
+        assertEquals(5, mSource.mLoads.size());
+        assertNotNull(mList.get(30));
+    }
+
+    @Test
+    public void loadedPages_areKeptWhileRecentlyUsed() {
+        for (int page = 0; page < 4; page++) {
+            mList.get(page * PAGE_SIZE);
+            mSource.complete(page);
+            runMainThreadTasks();
+            //keeps page 0 the most recently used one
+            assertNotNull(mList.get(0));
+        }
+        assertNotNull(mList.get(0));
+        assertNull(mList.get(10));
+    }
+
+    @Test
+    public void distantLoads_areCancelled() {
+        mList.get(0);
+        CancellationSignal signal = mSource.mLoads.get(0).mSignal;
+        mList.get(500);
+        assertTrue(signal.isCanceled());
+
+        //a cancelled load that completes anyway is ignored
+        mSource.complete(0);
+        runMainThreadTasks();
+        assertTrue(mLoadedRanges.isEmpty());
+        mList.get(500);
+        assertEquals(2, mSource.mLoads.size());
+    }
+
+    @Test
+    public void failedLoads_areRetried() {
+        mList.get(0);
+        mSource.fail(0);
+        runMainThreadTasks();
+
+        assertNull(mList.get(0));
+        assertEquals(2, mSource.mLoads.size());
+        mSource.complete(1);
+        runMainThreadTasks();
+        assertEquals("row 0", mList.get(0).getBody());
+    }
+
+    @Test
+    public void close_cancelsLoadsAndDropsPages() {
+        mList.get(0);
+        mSource.complete(0);
+        runMainThreadTasks();
+        mList.get(10);
+        CancellationSignal signal = mSource.mLoads.get(1).mSignal;
+
+        mList.close();
+        assertTrue(signal.isCanceled());
+        assertNull(mList.get(0));
+        assertEquals(2, mSource.mLoads.size());
+
+        mSource.complete(1);
+        runMainThreadTasks();
+        assertNull(mList.get(10));
+        assertEquals(1, mLoadedRanges.size());
+    }
+
+    @Test
+    public void unwrap_findsPagedListsShownInReverse() {
+        assertSame(mList, PagedSuggestionList.unwrap(mList));
+        assertSame(mList, PagedSuggestionList.unwrap(ReversedList.of(mList)));
+        assertNull(PagedSuggestionList.unwrap(new ArrayList<SearchSuggestion>()));
+    }
+
+    private PagedSuggestionList newList(int prefetchDistance, int maxPages) {
+        PagedSuggestionList list = new PagedSuggestionList.Builder(mSource, SIZE, mDirectExecutor)
+                .setPageSize(PAGE_SIZE)
+                .setPrefetchDistance(prefetchDistance)
+                .setMaxPages(maxPages)
+                .setMainThreadExecutor(mMainThreadExecutor)
+                .build();
+        list.setOnRangeLoadedListener(new PagedSuggestionList.OnRangeLoadedListener() {
+            @Override
+            public void onRangeLoaded(int start, int count) {
+                mLoadedRanges.add(new int[]{start, count});
+            }
+        });
+        return list;
+    }
+
+    private void runMainThreadTasks() {
+        List<Runnable> tasks = new ArrayList<>(mMainThreadTasks);
+        mMainThreadTasks.clear();
+        for (Runnable task : tasks) {
+            task.run();
+        }
+    }
+
+    private static class Load {
+
+        final int mStart;
+        final int mCount;
+        final CancellationSignal mSignal;
+        final PagedSuggestionSource.Callback mCallback;
+
+        Load(int start, int count, CancellationSignal signal, PagedSuggestionSource.Callback callback) {
+            this.mStart = start;
+            this.mCount = count;
+            this.mSignal = signal;
+            this.mCallback = callback;
+        }
+    }
+
+    //records the requested loads, so that the test decides when and how they finish
+    private static class FakeSource implements PagedSuggestionSource {
+
+        final List<Load> mLoads = new ArrayList<>();
+
+        @Override
+        public void loadRange(int start, int count, CancellationSignal cancellationSignal, Callback callback) {
+            mLoads.add(new Load(start, count, cancellationSignal, callback));
+        }
+
+        void complete(int loadIndex) {
+            Load load = mLoads.get(loadIndex);
+            List<SearchSuggestion> rows = new ArrayList<>();
+            for (int i = load.mStart; i < load.mStart + load.mCount; i++) {
+                rows.add(new TestSuggestion("row " + i, i));
+            }
+            load.mCallback.onRangeLoaded(rows);
+        }
+
+        void fail(int loadIndex) {
+            mLoads.get(loadIndex).mCallback.onRangeFailed(null);
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.walixiwa.floatingsearchview.suggestions;
+
+/**
+ * Copyright (C) 2015 Ari C.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import com.walixiwa.floatingsearchview.suggestions.model.SearchSuggestion;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests of {@link SuggestionCache}.
+ */
+public class SuggestionCacheTest {
+
+    @Test
+    public void normalizeQuery_trimsAndLowerCases() {
+        assertEquals("java", SuggestionCache.normalizeQuery("  Java "));
+        assertEquals("java script", SuggestionCache.normalizeQuery("Java Script"));
+    }
+
+    @Test
+    public void get_findsSuggestionsByNormalizedQuery() {
+        SuggestionCache cache = new SuggestionCache(10, 10000);
+        List<SearchSuggestion> suggestions = suggestions("java", "javascript");
+        cache.put("Java ", suggestions);
+
+        assertEquals(suggestions, cache.get("java"));
+        assertNull(cache.get("jav"));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void put_copiesTheSuggestions() {
+        SuggestionCache cache = new SuggestionCache(10, 10000);
+        List<SearchSuggestion> suggestions = suggestions("kotlin");
+        cache.put("kot", suggestions);
+        suggestions.clear();
+
+        List<? extends SearchSuggestion> cached = cache.get("kot");
+        assertEquals(1, cached.size());
+        try {
+            cached.remove(0);
+            fail("The cached suggestions can be modified");
+        } catch (UnsupportedOperationException e) {
+            //expected
+        }
+    }
+
+    @Test
+    public void put_evictsLeastRecentlyUsedEntriesBeyondMaxEntries() {
+        SuggestionCache cache = new SuggestionCache(2, 10000);
+        cache.put("a", suggestions("a"));
+        cache.put("b", suggestions("b"));
+        cache.get("a");
+        cache.put("c", suggestions("c"));
+
+        assertEquals(2, cache.size());
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+    @Test
+    public void put_evictsLeastRecentlyUsedEntriesBeyondMaxBytes() {
+        SuggestionCache cache = new CountingCache(25);
+        cache.put("a", suggestions("a1", "a2"));
+        cache.put("b", suggestions("b1"));
+
+        assertEquals(1, cache.size());
+        assertNull(cache.get("a"));
+        assertNotNull(cache.get("b"));
+        assertEquals(10, cache.byteSize());
+    }
+
+    @Test
+    public void put_replacesSuggestionsOfTheSameQuery() {
+        SuggestionCache cache = new CountingCache(100);
+        cache.put("a", suggestions("a1", "a2", "a3"));
+        cache.put("A ", suggestions("a1"));
+
+        assertEquals(1, cache.size());
+        assertEquals(1, cache.get("a").size());
+        assertEquals(10, cache.byteSize());
+        assertEquals(0, cache.getEvictionCount());
+    }
+
+    @Test
+    public void put_dropsSuggestionsLargerThanMaxBytes() {
+        SuggestionCache cache = new CountingCache(15);
+        cache.put("a", suggestions("a1", "a2"));
+
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.byteSize());
+    }
+
+    @Test
+    public void put_skipsCompactLists() {
+        SuggestionCache cache = new SuggestionCache(10, 10000);
+        cache.put("a", new CompactSuggestionList.Builder().add("a1", 1).build());
+
+        assertEquals(0, cache.size());
+        assertNull(cache.get("a"));
+    }
+
+    @Test
+    public void clear_keepsCounters() {
+        SuggestionCache cache = new SuggestionCache(10, 10000);
+        cache.put("a", suggestions("a"));
+        cache.get("a");
+        cache.clear();
+
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.byteSize());
+        assertNull(cache.get("a"));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_rejectsNonPositiveBounds() {
+        new SuggestionCache(0, 100);
+    }
+
+    private static List<SearchSuggestion> suggestions(String... bodies) {
+        List<SearchSuggestion> suggestions = new ArrayList<>();
+        for (String body : bodies) {
+            suggestions.add(new TestSuggestion(body, suggestions.size()));
+        }
+        return suggestions;
+    }
+
+    //accounts 10 bytes per suggestion, so that the byte bound is easy to reason about
+    private static class CountingCache extends SuggestionCache {
+
+        CountingCache(long maxBytes) {
+            super(100, maxBytes);
+        }
+
+        @Override
+        protected long sizeOf(List<? extends SearchSuggestion> suggestions) {
+            return 10L * suggestions.size();
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.walixiwa.floatingsearchview.suggestions.history;
+
+/**
+ * Copyright (C) 2015 Ari C.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests of {@link HistoryIndex}.
+ */
+public class HistoryIndexTest {
+
+    @Test
+    public void record_countsQueriesIgnoringCaseAndWhitespace() {
+        HistoryIndex index = new HistoryIndex();
+        assertTrue(index.record("Java", 1));
+        assertFalse(index.record(" java ", 5));
+        assertFalse(index.record("JAVA", 3));
+
+        assertEquals(1, index.size());
+        int[] positions = new int[1];
+        assertEquals(1, index.find("ja", positions));
+        //the last spelling is shown, the latest time is kept
+        assertEquals("JAVA", index.getQuery(positions[0]));
+        assertEquals(3, index.getUseCount(positions[0]));
+        assertEquals(5, index.getLastUsedMillis(positions[0]));
+    }
+
+    @Test
+    public void record_ignoresBlankQueries() {
+        HistoryIndex index = new HistoryIndex();
+        assertFalse(index.record("   ", 1));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    public void find_returnsOnlyQueriesStartingWithThePrefix() {
+        HistoryIndex index = index("java", "javascript", "jar", "kotlin", "ja");
+
+        assertEquals(setOf("java", "javascript"), findAll(index, "jav"));
+        assertEquals(setOf("java", "javascript", "jar", "ja"), findAll(index, "JA "));
+        assertEquals(setOf(), findAll(index, "javaz"));
+        assertEquals(setOf(), findAll(index, "a"));
+    }
+
+    @Test
+    public void find_withEmptyPrefixMatchesAllQueries() {
+        HistoryIndex index = index("b", "a", "c");
+        assertEquals(setOf("a", "b", "c"), findAll(index, ""));
+    }
+
+    @Test
+    public void find_ranksByUseCountThenByLastUse() {
+        HistoryIndex index = new HistoryIndex();
+        index.record("android", 1);
+        index.record("angular", 2);
+        index.record("ant", 3);
+        index.record("android", 4);
+
+        int[] positions = new int[3];
+        assertEquals(3, index.find("an", positions));
+        assertEquals("android", index.getQuery(positions[0]));
+        assertEquals("ant", index.getQuery(positions[1]));
+        assertEquals("angular", index.getQuery(positions[2]));
+    }
+
+    @Test
+    public void find_keepsTheBestRankedQueriesWhenLimited() {
+        HistoryIndex index = new HistoryIndex();
+        for (int i = 0; i < 100; i++) {
+            index.record("query " + i, i);
+        }
+
+        int[] positions = new int[3];
+        assertEquals(3, index.find("query", positions));
+        assertEquals("query 99", index.getQuery(positions[0]));
+        assertEquals("query 98", index.getQuery(positions[1]));
+        assertEquals("query 97", index.getQuery(positions[2]));
+        assertEquals(0, index.find("query", new int[0]));
+    }
+
+    @Test
+    public void find_matchesALinearScan() {
+        Random random = new Random(42);
+        HistoryIndex index = new HistoryIndex();
+        List<String> queries = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            String query = randomQuery(random, 1 + random.nextInt(6));
+            if (index.record(query, i)) {
+                queries.add(query);
+            }
+        }
+
+        for (int i = 0; i < 200; i++) {
+            String prefix = randomQuery(random, 1 + random.nextInt(3));
+            List<String> expected = new ArrayList<>();
+            for (String query : queries) {
+                if (query.startsWith(prefix)) {
+                    expected.add(query);
+                }
+            }
+            assertEquals(sorted(expected), findAll(index, prefix));
+        }
+    }
+
+    @Test
+    public void remove_removesQueriesIgnoringCase() {
+        HistoryIndex index = index("java", "kotlin");
+        assertTrue(index.remove("JAVA"));
+        assertFalse(index.remove("java"));
+
+        assertEquals(1, index.size());
+        assertEquals(setOf(), findAll(index, "ja"));
+    }
+
+    @Test
+    public void removeLeastRecentlyUsed_removesTheOldestQuery() {
+        HistoryIndex index = new HistoryIndex();
+        index.record("b", 2);
+        index.record("a", 1);
+        index.record("c", 3);
+        index.record("a", 4);
+
+        assertEquals("b", index.removeLeastRecentlyUsed());
+        assertEquals("c", index.removeLeastRecentlyUsed());
+        assertEquals("a", index.removeLeastRecentlyUsed());
+        assertNull(index.removeLeastRecentlyUsed());
+    }
+
+    @Test
+    public void copy_isIndependentOfLaterChanges() {
+        HistoryIndex index = index("java", "kotlin");
+        HistoryIndex copy = index.copy();
+        index.remove("java");
+        index.record("scala", 3);
+        copy.record("groovy", 4);
+
+        assertEquals(setOf("groovy", "java", "kotlin"), findAll(copy, ""));
+        assertEquals(setOf("kotlin", "scala"), findAll(index, ""));
+    }
+
+    @Test
+    public void clear_removesAllQueries() {
+        HistoryIndex index = index("java", "kotlin");
+        index.clear();
+
+        assertEquals(0, index.size());
+        assertEquals(setOf(), findAll(index, ""));
+        index.record("java", 1);
+        assertEquals(setOf("java"), findAll(index, ""));
+    }
+
+    private static HistoryIndex index(String... queries) {
+        HistoryIndex index = new HistoryIndex();
+        for (int i = 0; i < queries.length; i++) {
+            index.record(queries[i], i);
+        }
+        return index;
+    }
+
+    //returns all queries with the given prefix, sorted, so that ranking doesn't matter
+    private static List<String> findAll(HistoryIndex index, String prefix) {
+        int[] positions = new int[Math.max(index.size(), 1)];
+        int count = index.find(prefix, positions);
+        List<String> queries = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            queries.add(index.getQuery(positions[i]));
+        }
+        return sorted(queries);
+    }
+
+    private static List<String> setOf(String... queries) {
+        List<String> list = new ArrayList<>();
+        Collections.addAll(list, queries);
+        return sorted(list);
+    }
+
+    private static List<String> sorted(List<String> queries) {
+        Collections.sort(queries);
+        return queries;
+    }
+
+    private static String randomQuery(Random random, int length) {
+        StringBuilder query = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            query.append((char) ('a' + random.nextInt(4)));
+        }
+        return query.toString();
+    }
+}
@@ -0,0 +1,238 @@
+package com.walixiwa.floatingsearchview.suggestions.history;
+
+/**
+ * Copyright (C) 2015 Ari C.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests of {@link SearchHistoryStore}, against a temporary directory.
+ */
+public class SearchHistoryStoreTest {
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    @Test
+    public void appendedChanges_surviveReload() throws IOException {
+        File directory = mFolder.getRoot();
+        SearchHistoryStore store = new SearchHistoryStore(directory);
+        HistoryIndex index = new HistoryIndex();
+        store.load(index);
+        store.appendRecord("Java", 1);
+        store.appendRecord("java ", 2);
+        store.appendRecord("kotlin", 3);
+        store.appendRecord("scala", 4);
+        store.appendRemove("scala");
+        store.close();
+
+        HistoryIndex reloaded = load(directory);
+        assertEquals(2, reloaded.size());
+        assertQuery(reloaded, "ja", "java", 2, 2);
+        assertQuery(reloaded, "kot", "kotlin", 1, 3);
+        assertEquals(0, reloaded.find("sca", new int[1]));
+    }
+
+    @Test
+    public void compact_keepsContentAndDropsLogs() throws IOException {
+        File directory = mFolder.getRoot();
+        SearchHistoryStore store = new SearchHistoryStore(directory);
+        HistoryIndex index = new HistoryIndex();
+        store.load(index);
+        record(store, index, "android", 1);
+        record(store, index, "Apple", 2);
+        record(store, index, "apple", 3);
+        store.compact(index.copy());
+        assertEquals(0, store.getLogRecordCount());
+        record(store, index, "banana", 4);
+        store.close();
+
+        String[] logs = directory.list();
+        assertNotNull(logs);
+        int logCount = 0;
+        for (String name : logs) {
+            if (name.endsWith(".log")) {
+                logCount++;
+            }
+        }
+        assertEquals(1, logCount);
+
+        SearchHistoryStore reloadedStore = new SearchHistoryStore(directory);
+        HistoryIndex reloaded = new HistoryIndex();
+        reloadedStore.load(reloaded);
+        assertEquals(1, reloadedStore.getLogRecordCount());
+        assertEquals(3, reloaded.size());
+        assertQuery(reloaded, "app", "apple", 2, 3);
+        assertQuery(reloaded, "andr", "android", 1, 1);
+        assertQuery(reloaded, "ban", "banana", 1, 4);
+        reloadedStore.close();
+    }
+
+    @Test
+    public void reloadedIndex_changesQueriesOfTheIndexFile() throws IOException {
+        File directory = mFolder.getRoot();
+        SearchHistoryStore store = new SearchHistoryStore(directory);
+        HistoryIndex index = new HistoryIndex();
+        store.load(index);
+        record(store, index, "abc", 1);
+        record(store, index, "abd", 2);
+        record(store, index, "abe", 3);
+        store.compact(index.copy());
+        store.close();
+
+        store = new SearchHistoryStore(directory);
+        index = new HistoryIndex();
+        store.load(index);
+        record(store, index, "abd", 10);
+        record(store, index, "abf", 11);
+        index.remove("abe");
+        store.appendRemove("abe");
+        assertEquals("abc", index.removeLeastRecentlyUsed());
+        store.appendRemove("abc");
+
+        int[] positions = new int[10];
+        assertEquals(2, index.find("ab", positions));
+        assertEquals("abd", index.getQuery(positions[0]));
+        assertEquals(2, index.getUseCount(positions[0]));
+        assertEquals("abf", index.getQuery(positions[1]));
+
+        //compacting a partly mapped index merges both parts in key order
+        store.compact(index.copy());
+        store.close();
+        HistoryIndex reloaded = load(directory);
+        assertEquals(2, reloaded.size());
+        assertQuery(reloaded, "abd", "abd", 2, 10);
+        assertQuery(reloaded, "abf", "abf", 1, 11);
+    }
+
+    @Test
+    public void corruptIndexFile_resetsHistory() throws IOException {
+        File directory = mFolder.getRoot();
+        writeCompactedHistory(directory);
+        FileOutputStream out = new FileOutputStream(new File(directory, "history.idx"));
+        out.write(new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19, 20, 21});
+        out.close();
+
+        SearchHistoryStore store = new SearchHistoryStore(directory);
+        HistoryIndex index = new HistoryIndex();
+        store.load(index);
+        assertEquals(0, index.size());
+
+        //the reset history is usable
+        record(store, index, "fresh", 1);
+        store.close();
+        HistoryIndex reloaded = load(directory);
+        assertEquals(1, reloaded.size());
+        assertQuery(reloaded, "fre", "fresh", 1, 1);
+    }
+
+    @Test
+    public void truncatedIndexFile_resetsHistory() throws IOException {
+        File directory = mFolder.getRoot();
+        writeCompactedHistory(directory);
+        File indexFile = new File(directory, "history.idx");
+        RandomAccessFile file = new RandomAccessFile(indexFile, "rw");
+        file.setLength(file.length() - 3);
+        file.close();
+
+        assertEquals(0, load(directory).size());
+    }
+
+    @Test
+    public void corruptIndexRecord_resetsHistory() throws IOException {
+        File directory = mFolder.getRoot();
+        writeCompactedHistory(directory);
+        //the key length of the first record, right after the header and the key start
+        RandomAccessFile file = new RandomAccessFile(new File(directory, "history.idx"), "rw");
+        file.seek(5 * 4 + 4);
+        file.writeInt(-1);
+        file.close();
+
+        assertEquals(0, load(directory).size());
+    }
+
+    @Test
+    public void corruptLogRecord_replaysUpToIt() throws IOException {
+        File directory = mFolder.getRoot();
+        SearchHistoryStore store = new SearchHistoryStore(directory);
+        HistoryIndex index = new HistoryIndex();
+        store.load(index);
+        record(store, index, "first", 1);
+        record(store, index, "second", 2);
+        store.close();
+
+        File log = null;
+        for (File file : directory.listFiles()) {
+            if (file.getName().endsWith(".log") && file.length() > 0) {
+                log = file;
+            }
+        }
+        assertNotNull(log);
+        DataOutputStream out = new DataOutputStream(new FileOutputStream(log, true));
+        out.writeByte(1);
+        out.writeLong(3);
+        out.writeInt(-5);
+        out.writeBytes("garbage");
+        out.close();
+
+        HistoryIndex reloaded = load(directory);
+        assertEquals(2, reloaded.size());
+        assertQuery(reloaded, "sec", "second", 1, 2);
+    }
+
+    private static void writeCompactedHistory(File directory) throws IOException {
+        SearchHistoryStore store = new SearchHistoryStore(directory);
+        HistoryIndex index = new HistoryIndex();
+        store.load(index);
+        record(store, index, "one", 1);
+        record(store, index, "two", 2);
+        store.compact(index.copy());
+        store.close();
+    }
+
+    private static void record(SearchHistoryStore store, HistoryIndex index,
+                               String query, long timeMillis) throws IOException {
+        index.record(query, timeMillis);
+        store.appendRecord(query, timeMillis);
+    }
+
+    private static HistoryIndex load(File directory) throws IOException {
+        SearchHistoryStore store = new SearchHistoryStore(directory);
+        HistoryIndex index = new HistoryIndex();
+        store.load(index);
+        store.close();
+        return index;
+    }
+
+    private static void assertQuery(HistoryIndex index, String prefix, String query,
+                                    int useCount, long lastUsedMillis) {
+        int[] positions = new int[1];
+        assertEquals(1, index.find(prefix, positions));
+        assertEquals(query, index.getQuery(positions[0]));
+        assertEquals(useCount, index.getUseCount(positions[0]));
+        assertEquals(lastUsedMillis, index.getLastUsedMillis(positions[0]));
+    }
+}
@@ -0,0 +1,86 @@
+package com.walixiwa.floatingsearchview.suggestions.history;
+
+/**
+ * Copyright (C) 2015 Ari C.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests of {@link SearchHistory} without a store.
+ */
+public class SearchHistoryTest {
+
+    @Test
+    public void getSuggestions_returnsRankedHistorySuggestions() {
+        SearchHistory history = new SearchHistory();
+        history.add("android", 1);
+        history.add("angular", 2);
+        history.add("Android", 3);
+        history.add("kotlin", 4);
+
+        List<HistorySuggestion> suggestions = history.getSuggestions("an");
+        assertEquals(2, suggestions.size());
+        assertEquals("Android", suggestions.get(0).getBody());
+        assertEquals(2, suggestions.get(0).getUseCount());
+        assertEquals(3, suggestions.get(0).getLastUsedMillis());
+        assertEquals("angular", suggestions.get(1).getBody());
+    }
+
+    @Test
+    public void getSuggestions_returnsAtMostMaxSuggestions() {
+        SearchHistory history = new SearchHistory();
+        history.setMaxSuggestions(2);
+        for (int i = 0; i < 5; i++) {
+            history.add("query " + i, i);
+        }
+
+        List<HistorySuggestion> suggestions = history.getSuggestions("query");
+        assertEquals(2, suggestions.size());
+        assertEquals("query 4", suggestions.get(0).getBody());
+        assertEquals("query 3", suggestions.get(1).getBody());
+    }
+
+    @Test
+    public void add_removesLeastRecentlyUsedQueriesBeyondMaxEntries() {
+        SearchHistory history = new SearchHistory(2);
+        history.add("a", 1);
+        history.add("b", 2);
+        history.add("a", 3);
+        history.add("c", 4);
+
+        assertEquals(2, history.size());
+        assertTrue(history.getSuggestions("b").isEmpty());
+        assertEquals(1, history.getSuggestions("a").size());
+        assertEquals(1, history.getSuggestions("c").size());
+    }
+
+    @Test
+    public void removeAndClear_dropQueries() {
+        SearchHistory history = new SearchHistory();
+        history.add("a", 1);
+        history.add("b", 2);
+        history.remove("A");
+        assertEquals(1, history.size());
+
+        history.clear();
+        assertEquals(0, history.size());
+        assertTrue(history.getSuggestions("").isEmpty());
+    }
+}
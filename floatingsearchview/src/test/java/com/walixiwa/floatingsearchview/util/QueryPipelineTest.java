@@ -0,0 +1,244 @@
+package com.walixiwa.floatingsearchview.util;
+
+/**
+ * Copyright (C) 2015 Ari C.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+import androidx.core.os.CancellationSignal;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests of {@link QueryPipeline}.
+ */
+public class QueryPipelineTest {
+
+    private static final long DEBOUNCE_MILLIS = 300;
+
+    private final FakeScheduler mScheduler = new FakeScheduler();
+    private final List<Runnable> mBackgroundTasks = new ArrayList<>();
+    private final List<String> mQueries = new ArrayList<>();
+    private final List<CancellationSignal> mSignals = new ArrayList<>();
+
+    private final Executor mDirectExecutor = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    private final Executor mBackgroundExecutor = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            mBackgroundTasks.add(command);
+        }
+    };
+
+    private final QueryPipeline.Listener mListener = new QueryPipeline.Listener() {
+        @Override
+        public void onQuery(String query, CancellationSignal cancellationSignal) {
+            mQueries.add(query);
+            mSignals.add(cancellationSignal);
+        }
+    };
+
+    private QueryPipeline mPipeline;
+
+    @Before
+    public void setUp() {
+        mPipeline = new QueryPipeline(mDirectExecutor, mListener, mScheduler);
+        mPipeline.setDebounce(DEBOUNCE_MILLIS);
+    }
+
+    @Test
+    public void onQueryChanged_deliversOnlyTheSettledQuery() {
+        mPipeline.onQueryChanged("a");
+        mPipeline.onQueryChanged("ab");
+        mPipeline.onQueryChanged("abc");
+
+        assertTrue(mQueries.isEmpty());
+        assertEquals(1, mScheduler.mPending.size());
+        assertEquals(Long.valueOf(DEBOUNCE_MILLIS), mScheduler.mPending.values().iterator().next());
+
+        mScheduler.runPending();
+        assertEquals(Arrays.asList("abc"), mQueries);
+    }
+
+    @Test
+    public void onQueryChanged_deliversRightAwayWithoutDebounce() {
+        mPipeline.setDebounce(0);
+        mPipeline.onQueryChanged("a");
+        mPipeline.onQueryChanged("ab");
+
+        assertTrue(mScheduler.mPending.isEmpty());
+        assertEquals(Arrays.asList("a", "ab"), mQueries);
+    }
+
+    @Test
+    public void onQueryChanged_trimsQueriesBeforeCheckingTheMinimumLength() {
+        mPipeline.setMinQueryLength(3);
+        mPipeline.onQueryChanged("  ab  ");
+        mScheduler.runPending();
+        assertTrue(mQueries.isEmpty());
+        assertFalse(mPipeline.isLongEnough("  ab  "));
+
+        mPipeline.onQueryChanged(" abc ");
+        mScheduler.runPending();
+        assertTrue(mPipeline.isLongEnough(" abc "));
+        assertEquals(Arrays.asList(" abc "), mQueries);
+    }
+
+    @Test
+    public void onQueryChanged_skipsTheLastDeliveredQuery() {
+        mPipeline.onQueryChanged("abc");
+        mScheduler.runPending();
+        mPipeline.onQueryChanged("abc ");
+        mScheduler.runPending();
+        mPipeline.onQueryChanged("abcd");
+        mScheduler.runPending();
+
+        assertEquals(Arrays.asList("abc", "abcd"), mQueries);
+    }
+
+    @Test
+    public void onQueryChanged_redeliversAQueryAfterATooShortOne() {
+        mPipeline.setMinQueryLength(2);
+        mPipeline.onQueryChanged("ab");
+        mScheduler.runPending();
+        mPipeline.onQueryChanged("a");
+        mScheduler.runPending();
+        mPipeline.onQueryChanged("ab");
+        mScheduler.runPending();
+
+        assertEquals(Arrays.asList("ab", "ab"), mQueries);
+        assertTrue(mSignals.get(0).isCanceled());
+        assertFalse(mSignals.get(1).isCanceled());
+    }
+
+    @Test
+    public void onQueryChanged_cancelsTheInFlightQuery() {
+        mPipeline.onQueryChanged("abc");
+        mScheduler.runPending();
+        mPipeline.onQueryChanged("abcd");
+        mScheduler.runPending();
+
+        assertEquals(2, mSignals.size());
+        assertTrue(mSignals.get(0).isCanceled());
+        assertFalse(mSignals.get(1).isCanceled());
+    }
+
+    @Test
+    public void onQueryChanged_skipsQueriesCancelledBeforeTheyRun() {
+        mPipeline = new QueryPipeline(mBackgroundExecutor, mListener, mScheduler);
+        mPipeline.setDebounce(DEBOUNCE_MILLIS);
+        mPipeline.onQueryChanged("abc");
+        mScheduler.runPending();
+        mPipeline.onQueryChanged("abcd");
+        mScheduler.runPending();
+
+        assertEquals(2, mBackgroundTasks.size());
+        for (Runnable task : mBackgroundTasks) {
+            task.run();
+        }
+        assertEquals(Arrays.asList("abcd"), mQueries);
+    }
+
+    @Test
+    public void cancel_dropsThePendingAndInFlightQueries() {
+        mPipeline.onQueryChanged("abc");
+        mScheduler.runPending();
+        mPipeline.onQueryChanged("abcd");
+        mPipeline.cancel();
+
+        assertTrue(mScheduler.mPending.isEmpty());
+        assertTrue(mSignals.get(0).isCanceled());
+
+        //the last delivered query is forgotten, so it is delivered again
+        mPipeline.onQueryChanged("abc");
+        mScheduler.runPending();
+        assertEquals(Arrays.asList("abc", "abc"), mQueries);
+    }
+
+    @Test
+    public void onQueryAnswered_countsTheQueryAsDelivered() {
+        mPipeline.onQueryChanged("abc");
+        mScheduler.runPending();
+        mPipeline.onQueryChanged("abcd");
+        mPipeline.onQueryAnswered("abcd");
+
+        assertTrue(mScheduler.mPending.isEmpty());
+        assertTrue(mSignals.get(0).isCanceled());
+
+        mPipeline.onQueryChanged("abcd");
+        mScheduler.runPending();
+        assertEquals(Arrays.asList("abc"), mQueries);
+    }
+
+    @Test
+    public void releaseInFlight_handsOverTheSignalWithoutCancellingIt() {
+        mPipeline.onQueryChanged("abc");
+        mScheduler.runPending();
+        CancellationSignal signal = mPipeline.releaseInFlight();
+
+        assertSame(mSignals.get(0), signal);
+        mPipeline.onQueryChanged("abcd");
+        mScheduler.runPending();
+        assertFalse(signal.isCanceled());
+
+        QueryPipeline next = new QueryPipeline(mDirectExecutor, mListener, mScheduler);
+        next.resumeInFlight("abc", signal);
+        next.onQueryChanged("abc");
+        mScheduler.runPending();
+        assertEquals(Arrays.asList("abc", "abcd"), mQueries);
+        next.onQueryChanged("abcde");
+        mScheduler.runPending();
+        assertTrue(signal.isCanceled());
+    }
+
+    /**
+     * Runs the delayed runnables when told to, instead of after their delay.
+     */
+    private static class FakeScheduler implements QueryPipeline.Scheduler {
+
+        private final Map<Runnable, Long> mPending = new LinkedHashMap<>();
+
+        @Override
+        public void postDelayed(Runnable runnable, long delayMillis) {
+            mPending.put(runnable, delayMillis);
+        }
+
+        @Override
+        public void removeCallbacks(Runnable runnable) {
+            mPending.remove(runnable);
+        }
+
+        void runPending() {
+            List<Runnable> pending = new ArrayList<>(mPending.keySet());
+            mPending.clear();
+            for (Runnable runnable : pending) {
+                runnable.run();
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.walixiwa.floatingsearchview.util;
+
+/**
+ * Copyright (C) 2015 Ari C.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.RandomAccess;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests of {@link ReversedList}.
+ */
+public class ReversedListTest {
+
+    @Test
+    public void of_reversesTheList() {
+        List<String> reversed = ReversedList.of(Arrays.asList("a", "b", "c"));
+        assertEquals(Arrays.asList("c", "b", "a"), reversed);
+        assertEquals("a", reversed.get(2));
+    }
+
+    @Test
+    public void of_returnsTheOriginalListWhenReversedTwice() {
+        List<String> list = Arrays.asList("a", "b");
+        assertSame(list, ReversedList.of(ReversedList.of(list)));
+    }
+
+    @Test
+    public void of_isRandomAccessOnlyIfTheListIs() {
+        assertTrue(ReversedList.of(new ArrayList<String>()) instanceof RandomAccess);
+        assertFalse(ReversedList.of(new LinkedList<String>()) instanceof RandomAccess);
+    }
+
+    @Test
+    public void sequentialList_iteratesInReverse() {
+        List<String> reversed = ReversedList.of(new LinkedList<>(Arrays.asList("a", "b", "c")));
+        assertEquals(Arrays.asList("c", "b", "a"), new ArrayList<>(reversed));
+
+        ListIterator<String> iterator = reversed.listIterator(1);
+        assertEquals(1, iterator.nextIndex());
+        assertEquals("b", iterator.next());
+        assertEquals(1, iterator.previousIndex());
+        assertEquals("b", iterator.previous());
+        assertEquals("c", iterator.previous());
+        assertFalse(iterator.hasPrevious());
+    }
+
+    @Test
+    public void changesToTheList_areVisible() {
+        List<String> list = new ArrayList<>(Arrays.asList("a"));
+        List<String> reversed = ReversedList.of(list);
+        list.add("b");
+        assertEquals(Arrays.asList("b", "a"), reversed);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void set_isUnsupported() {
+        ReversedList.of(new LinkedList<>(Arrays.asList("a"))).listIterator().set("b");
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void get_outOfBounds_throws() {
+        ReversedList.of(Arrays.asList("a")).get(1);
+    }
+}